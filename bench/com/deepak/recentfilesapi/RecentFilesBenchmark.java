@@ -0,0 +1,640 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.swing.ImageIcon;
+import javax.swing.JMenu;
+import javax.swing.SwingUtilities;
+
+/**
+ * the RecentFilesBenchmark measures the load, add, save and menu build paths
+ * of the recent files API headless, in the manner of JMH: every benchmark is
+ * run for warmup iterations and then for measured iterations of a fixed time,
+ * and the mean time per operation is reported with its 99.9% error over the
+ * measured iterations. the benchmarks are run for every combination of their
+ * parameters. run it with "ant bench", setting these properties to change the
+ * defaults:
+ * <pre>
+ * bench.filter       regular expression of the benchmark names to run
+ * bench.maxRecords   maximum nos of recent files, like 10,100,1000
+ * bench.attributes   nos of attributes per recent file, like 0,4
+ * bench.iconTypes    sizes of the FileIconTypes array, like 0,16
+ * bench.formats      storage formats, like CONFIG_FILE,JOURNAL,BINARY
+ * bench.warmup       no of warmup iterations
+ * bench.iterations   no of measured iterations
+ * bench.time         time of an iteration in milliseconds
+ * bench.csv          file to which the results are appended, to track them
+ *                    across releases
+ * </pre>
+ *
+ * @author deepak
+ */
+public class RecentFilesBenchmark {
+
+    /**
+     * the student t values for a 99.9% confidence interval, by degrees of
+     * freedom from 1 to 10, and for more degrees of freedom
+     */
+    private static final double[] T_999 = {636.6, 31.6, 12.9, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59, 3.29};
+    /**
+     * the benchmark names matched by the filter
+     */
+    private final Pattern filter;
+    /**
+     * the no of warmup iterations
+     */
+    private final int warmup;
+    /**
+     * the no of measured iterations
+     */
+    private final int iterations;
+    /**
+     * the time of an iteration in nanoseconds
+     */
+    private final long iterationNanos;
+    /**
+     * the folder of the config files of the benchmarks
+     */
+    private final File folder;
+    /**
+     * the results file, or null
+     */
+    private final PrintWriter csv;
+
+    /**
+     * creates a benchmark runner from the system properties
+     *
+     * @throws IOException if the folder or the results file could not be
+     * created
+     */
+    RecentFilesBenchmark() throws IOException {
+        filter = Pattern.compile(System.getProperty("bench.filter", ".*"));
+        warmup = Integer.parseInt(System.getProperty("bench.warmup", "3"));
+        iterations = Integer.parseInt(System.getProperty("bench.iterations", "5"));
+        iterationNanos = Long.parseLong(System.getProperty("bench.time", "1000")) * 1000000L;
+        folder = File.createTempFile("recentfilesbench", "");
+        folder.delete();
+        folder.mkdirs();
+        String csvFile = System.getProperty("bench.csv");
+        csv = csvFile == null ? null : new PrintWriter(new FileWriter(csvFile, true));
+    }
+
+    /**
+     * runs all the benchmarks matched by the filter
+     *
+     * @param args not used
+     * @throws Exception if a benchmark failed
+     */
+    public static void main(String[] args) throws Exception {
+        RecentFilesBenchmark runner = new RecentFilesBenchmark();
+        int[] maxRecords = ints(System.getProperty("bench.maxRecords", "10,100,1000"));
+        int[] attributes = ints(System.getProperty("bench.attributes", "0,4"));
+        int[] iconTypes = ints(System.getProperty("bench.iconTypes", "0,16"));
+        List<StorageFormat> formats = new ArrayList<>();
+        for (String format : System.getProperty("bench.formats", "CONFIG_FILE,JOURNAL,BINARY").split(",")) {
+            formats.add(StorageFormat.valueOf(format.trim()));
+        }
+
+        System.out.printf("%-26s %-12s %10s %10s %10s %14s %12s%n",
+                "Benchmark", "format", "maxRecords", "attributes", "iconTypes", "ns/op", "error");
+        try {
+            for (StorageFormat format : formats) {
+                for (int records : maxRecords) {
+                    for (int attributeCount : attributes) {
+                        runner.run(new Load(), format, records, attributeCount, 0);
+                        runner.run(new AddSynchronous(), format, records, attributeCount, 0);
+                        runner.run(new AddAtCapacitySynchronous(), format, records, attributeCount, 0);
+                        runner.run(new AddBelowCapacity(), format, records, attributeCount, 0);
+                        runner.run(new AddAtCapacity(), format, records, attributeCount, 0);
+                        runner.run(new Save(), format, records, attributeCount, 0);
+                    }
+                }
+            }
+            // the menu doesnt depend on the storage format
+            for (int records : maxRecords) {
+                for (int attributeCount : attributes) {
+                    for (int iconTypeCount : iconTypes) {
+                        runner.run(new MenuBuild(), formats.get(0), records, attributeCount, iconTypeCount);
+                        runner.run(new MenuUpdate(), formats.get(0), records, attributeCount, iconTypeCount);
+                    }
+                }
+            }
+        } finally {
+            // every benchmark closed its stores, so the JVM ends by itself
+            // unless the library left a thread running
+            runner.close();
+        }
+    }
+
+    /**
+     * runs one benchmark with one set of parameters and reports its result
+     *
+     * @param benchmark the benchmark
+     * @param format the storage format
+     * @param maxRecords the maximum no of recent files
+     * @param attributes the no of attributes per recent file
+     * @param iconTypes the size of the FileIconTypes array
+     * @throws Exception if the benchmark failed
+     */
+    private void run(Benchmark benchmark, StorageFormat format, int maxRecords, int attributes, int iconTypes) throws Exception {
+        String name = benchmark.getClass().getSimpleName();
+        if (!filter.matcher(name).matches()) {
+            return;
+        }
+        File configFile = new File(folder, name + "-" + format + "-" + maxRecords + "-" + attributes + "-" + iconTypes + ".config");
+        benchmark.setUp(new Params(configFile, format, maxRecords, attributes, iconTypes));
+        try {
+            for (int i = 0; i < warmup; i++) {
+                iteration(benchmark);
+            }
+            double[] results = new double[iterations];
+            for (int i = 0; i < iterations; i++) {
+                results[i] = iteration(benchmark);
+            }
+
+            // the mean and its confidence interval
+            double mean = 0;
+            for (double result : results) {
+                mean += result;
+            }
+            mean /= results.length;
+            double error = Double.NaN;
+            if (results.length > 1) {
+                double variance = 0;
+                for (double result : results) {
+                    variance += (result - mean) * (result - mean);
+                }
+                variance /= results.length - 1;
+                double t = T_999[Math.min(results.length - 2, T_999.length - 1)];
+                error = t * Math.sqrt(variance / results.length);
+            }
+            System.out.printf("%-26s %-12s %10d %10d %10d %14.1f %12.1f%n",
+                    name, format, maxRecords, attributes, iconTypes, mean, error);
+            if (csv != null) {
+                csv.printf("%tF %<tT,%s,%s,%d,%d,%d,%.1f,%.1f%n",
+                        new Date(), name, format, maxRecords, attributes, iconTypes, mean, error);
+                csv.flush();
+            }
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    /**
+     * runs the operation of a benchmark repeatedly for one iteration
+     *
+     * @param benchmark the benchmark
+     * @return the mean time per operation in nanoseconds
+     * @throws Exception if the benchmark failed
+     */
+    private double iteration(Benchmark benchmark) throws Exception {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            benchmark.run();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return (double) elapsed / ops;
+    }
+
+    /**
+     * closes the results file and deletes the config files
+     */
+    private void close() {
+        if (csv != null) {
+            csv.close();
+        }
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    /**
+     * parses a comma separated list of ints
+     *
+     * @param list the list
+     * @return the ints
+     */
+    private static int[] ints(String list) {
+        String[] values = list.split(",");
+        int[] ints = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ints[i] = Integer.parseInt(values[i].trim());
+        }
+        return ints;
+    }
+
+    /**
+     * the parameters of a benchmark run
+     */
+    static class Params {
+
+        /**
+         * the config file, which doesnt exist yet
+         */
+        final File configFile;
+        /**
+         * the storage format
+         */
+        final StorageFormat format;
+        /**
+         * the maximum no of recent files
+         */
+        final int maxRecords;
+        /**
+         * the no of attributes per recent file
+         */
+        final int attributes;
+        /**
+         * the size of the FileIconTypes array
+         */
+        final int iconTypes;
+
+        /**
+         * creates benchmark parameters
+         *
+         * @param configFile the config file
+         * @param format the storage format
+         * @param maxRecords the maximum no of recent files
+         * @param attributes the no of attributes per recent file
+         * @param iconTypes the size of the FileIconTypes array
+         */
+        Params(File configFile, StorageFormat format, int maxRecords, int attributes, int iconTypes) {
+            this.configFile = configFile;
+            this.format = format;
+            this.maxRecords = maxRecords;
+            this.attributes = attributes;
+            this.iconTypes = iconTypes;
+        }
+
+        /**
+         * creates a store of the parameters
+         *
+         * @return the store, empty if the config file didnt exist
+         * @throws IOException if the store could not be created
+         */
+        RecentFilesStore createStore() throws IOException {
+            return new RecentFilesStore(configFile.getPath(), maxRecords, format);
+        }
+
+        /**
+         * creates a store of the parameters holding the maximum no of recent
+         * files
+         *
+         * @return the full store
+         * @throws IOException if the store could not be created or saved
+         */
+        RecentFilesStore createFullStore() throws IOException {
+            RecentFilesStore store = createStore();
+            store.beginBatch();
+            try {
+                for (int i = 0; i < maxRecords; i++) {
+                    store.add(file(i), attributes(i));
+                }
+            } finally {
+                store.endBatch();
+            }
+            return store;
+        }
+
+        /**
+         * getter for the file of a no
+         *
+         * @param no the no
+         * @return the file
+         */
+        File file(int no) {
+            return new File(configFile.getParentFile(), "folder" + (no % 16) + File.separator + "file" + no + ".txt");
+        }
+
+        /**
+         * getter for the attributes of a file no
+         *
+         * @param no the file no
+         * @return the named attributes
+         */
+        String[] attributes(int no) {
+            String[] values = new String[attributes];
+            for (int i = 0; i < attributes; i++) {
+                values[i] = "attribute" + i + "=" + (no + i);
+            }
+            return values;
+        }
+
+        /**
+         * creates the FileIconTypes array
+         *
+         * @return the FileIconTypes array, or null if its size is 0
+         */
+        FileIconTypes[] fileIconTypes() {
+            if (iconTypes == 0) {
+                return null;
+            }
+            ImageIcon icon = new ImageIcon(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB));
+            FileIconTypes[] types = new FileIconTypes[iconTypes];
+            for (int i = 0; i < iconTypes; i++) {
+                // the last type matches the benchmark files
+                types[i] = new FileIconTypes(i == iconTypes - 1 ? "txt" : "ext" + i, icon);
+            }
+            return types;
+        }
+    }
+
+    /**
+     * a benchmark, whose operation is timed
+     */
+    abstract static class Benchmark {
+
+        /**
+         * prepares the benchmark
+         *
+         * @param params the parameters
+         * @throws Exception if the benchmark could not be prepared
+         */
+        abstract void setUp(Params params) throws Exception;
+
+        /**
+         * runs the timed operation once
+         *
+         * @throws Exception if the operation failed
+         */
+        abstract void run() throws Exception;
+
+        /**
+         * releases the resources of the benchmark
+         *
+         * @throws Exception if the resources could not be released
+         */
+        abstract void tearDown() throws Exception;
+    }
+
+    /**
+     * loads a full config file, as done when a RecentFilesManager is created
+     */
+    static class Load extends Benchmark {
+
+        /**
+         * the parameters
+         */
+        private Params params;
+
+        @Override
+        void setUp(Params params) throws Exception {
+            this.params = params;
+            params.createFullStore().close();
+        }
+
+        @Override
+        void run() throws Exception {
+            params.createStore().close();
+        }
+
+        @Override
+        void tearDown() {
+        }
+    }
+
+    /**
+     * adds the recent files of a half full list again, in write-behind mode
+     */
+    static class AddBelowCapacity extends Benchmark {
+
+        /**
+         * the store
+         */
+        RecentFilesStore store;
+        /**
+         * the parameters
+         */
+        Params params;
+        /**
+         * the no of the next added file
+         */
+        int next = 0;
+        /**
+         * the no of files added again
+         */
+        int count;
+
+        @Override
+        void setUp(Params params) throws Exception {
+            this.params = params;
+            store = params.createStore();
+            count = Math.max(1, params.maxRecords / 2);
+            for (int i = 0; i < count; i++) {
+                store.add(params.file(i), params.attributes(i));
+            }
+            saveMode();
+        }
+
+        /**
+         * sets the save mode of the timed adds
+         *
+         * @throws IOException if the save mode could not be set
+         */
+        void saveMode() throws IOException {
+            store.setWriteBehindDelay(100);
+        }
+
+        @Override
+        void run() throws Exception {
+            int no = next++ % count;
+            store.add(params.file(no), params.attributes(no));
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            store.close();
+        }
+    }
+
+    /**
+     * adds new recent files to a full list, evicting the least recent ones,
+     * in write-behind mode
+     */
+    static class AddAtCapacity extends AddBelowCapacity {
+
+        @Override
+        void setUp(Params params) throws Exception {
+            this.params = params;
+            store = params.createFullStore();
+            next = params.maxRecords;
+            saveMode();
+        }
+
+        @Override
+        void run() throws Exception {
+            int no = next++;
+            store.add(params.file(no), params.attributes(no));
+        }
+    }
+
+    /**
+     * adds the recent files of a half full list again, saving every add as
+     * done by default
+     */
+    static class AddSynchronous extends AddBelowCapacity {
+
+        @Override
+        void saveMode() {
+        }
+    }
+
+    /**
+     * adds new recent files to a full list, evicting the least recent ones,
+     * saving every add as done by default
+     */
+    static class AddAtCapacitySynchronous extends AddAtCapacity {
+
+        @Override
+        void saveMode() {
+        }
+    }
+
+    /**
+     * saves a full list after one change
+     */
+    static class Save extends AddBelowCapacity {
+
+        @Override
+        void setUp(Params params) throws Exception {
+            this.params = params;
+            store = params.createFullStore();
+            count = params.maxRecords;
+            // the changes are saved by the benchmark, not by the writer
+            store.setWriteBehindDelay(3600000);
+        }
+
+        @Override
+        void run() throws Exception {
+            super.run();
+            store.save();
+        }
+    }
+
+    /**
+     * builds the JMenu of a full list from scratch on the event dispatch
+     * thread
+     */
+    static class MenuBuild extends Benchmark {
+
+        /**
+         * the store
+         */
+        RecentFilesStore store;
+        /**
+         * the FileIconTypes array
+         */
+        FileIconTypes[] fileIconTypes;
+        /**
+         * the action listener of the JMenuItems
+         */
+        final ActionListener actionListener = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+            }
+        };
+        /**
+         * builds the JMenu
+         */
+        private final Runnable build = new Runnable() {
+            @Override
+            public void run() {
+                new RecentFilesMenu(new JMenu(), store, fileIconTypes, actionListener).update();
+            }
+        };
+
+        @Override
+        void setUp(Params params) throws Exception {
+            store = params.createFullStore();
+            fileIconTypes = params.fileIconTypes();
+        }
+
+        @Override
+        void run() throws Exception {
+            SwingUtilities.invokeAndWait(build);
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            store.close();
+        }
+    }
+
+    /**
+     * adds the least recent file of a full list again and updates the JMenu,
+     * in write-behind mode
+     */
+    static class MenuUpdate extends MenuBuild {
+
+        /**
+         * the parameters
+         */
+        private Params params;
+        /**
+         * the JMenu
+         */
+        private RecentFilesMenu menu;
+        /**
+         * the no of the next added file
+         */
+        private int next = 0;
+        /**
+         * updates the JMenu
+         */
+        private final Runnable update = new Runnable() {
+            @Override
+            public void run() {
+                menu.update();
+            }
+        };
+
+        @Override
+        void setUp(Params params) throws Exception {
+            super.setUp(params);
+            this.params = params;
+            store.setWriteBehindDelay(100);
+            menu = new RecentFilesMenu(new JMenu(), store, fileIconTypes, actionListener);
+            SwingUtilities.invokeAndWait(update);
+        }
+
+        @Override
+        void run() throws Exception {
+            // the least recent file, as the files were added in order
+            int no = next++ % params.maxRecords;
+            store.add(params.file(no), params.attributes(no));
+            SwingUtilities.invokeAndWait(update);
+        }
+    }
+}
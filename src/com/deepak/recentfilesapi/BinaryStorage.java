@@ -0,0 +1,323 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * the BinaryStorage saves the whole recent files list to the config file in a
+ * compact binary layout. loading reads only the header, the loaded entries and
+ * the strings they use with positional reads, so it does not depend on the
+ * size of the whole list. the file is not memory mapped, as a live mapping
+ * would keep it from being replaced by the next save on some platforms.
+ * <p>
+ * the layout is a header (magic, version, entry count, string count), an index
+ * block with the offset of every entry and every string, the entries (path
+ * string no, attribute count and attribute string nos) and a string table of
+ * length prefixed UTF-8 strings. equal strings are stored only once. text
+ * config files are converted to the binary layout when they are loaded
+ *
+ * @author deepak
+ */
+class BinaryStorage extends ConfigFileStorage {
+
+    /**
+     * the magic no at the start of the binary config file
+     */
+    static final int MAGIC = 0x52464131;
+    /**
+     * the binary layout version
+     */
+    static final int VERSION = 1;
+    /**
+     * the size in bytes of the header
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * creates a binary storage
+     *
+     * @param configFile the recent files config file
+     */
+    BinaryStorage(File configFile) {
+        super(configFile);
+    }
+
+    @Override
+    void loadList(RecentFilesList recentFilesList, int maxRecords) throws IOException {
+        try (FileChannel channel = FileChannel.open(configFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= HEADER_SIZE) {
+                ByteBuffer header = read(channel, size, 0, HEADER_SIZE);
+                if (header.getInt(0) == MAGIC) {
+                    loadBinary(channel, size, header, recentFilesList, maxRecords);
+                    return;
+                }
+            }
+        }
+
+        // the config file is a text config file, so convert it. a new empty
+        // config file is left as it is
+        loadText(recentFilesList, maxRecords);
+        if (configFile.length() > 0) {
+            writeSnapshot(recentFilesList.toArray());
+        }
+    }
+
+    /**
+     * loads the recent files of a binary config file, reading only the
+     * header, the loaded entries and the strings they use. the strings are
+     * numbered in the order the entries first use them, so the strings of
+     * the loaded entries are the first ones of the string table, and they are
+     * read with one read
+     *
+     * @param channel the config file channel
+     * @param size the size of the config file
+     * @param header the header
+     * @param recentFilesList the recent files list to be loaded
+     * @param maxRecords the maximum no of recent files to be loaded
+     * @throws IOException if the config file could not be read, or is corrupt
+     */
+    private void loadBinary(FileChannel channel, long size, ByteBuffer header,
+            RecentFilesList recentFilesList, int maxRecords) throws IOException {
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported recent files config version " + header.getInt(4));
+        }
+        int entryCount = header.getInt(8);
+        int stringCount = header.getInt(12);
+        // the entry offsets are followed by the string offsets, and then by
+        // the entries and the string table
+        long stringIndex = HEADER_SIZE + 4L * entryCount;
+        long dataStart = stringIndex + 4L * stringCount;
+        if (entryCount < 0 || stringCount < 0 || dataStart > size) {
+            throw corrupt("invalid entry count " + entryCount + " or string count " + stringCount);
+        }
+
+        // the string nos of the loaded entries, the path first
+        int count = Math.min(entryCount, Math.max(0, maxRecords));
+        ByteBuffer entryOffsets = read(channel, size, HEADER_SIZE, 4 * count);
+        int[][] entries = new int[count][];
+        int stringsUsed = 0;
+        for (int i = 0; i < count; i++) {
+            long entry = entryOffsets.getInt(4 * i);
+            if (entry < dataStart || entry > size - 8) {
+                throw corrupt("invalid entry offset " + entry);
+            }
+            ByteBuffer entryHeader = read(channel, size, entry, 8);
+            int attributeCount = entryHeader.getInt(4);
+            if (attributeCount < 0 || attributeCount > (size - entry - 8) / 4) {
+                throw corrupt("invalid attribute count " + attributeCount);
+            }
+            ByteBuffer attributeNos = read(channel, size, entry + 8, 4 * attributeCount);
+            int[] stringNos = new int[1 + attributeCount];
+            stringNos[0] = entryHeader.getInt(0);
+            for (int j = 0; j < attributeCount; j++) {
+                stringNos[1 + j] = attributeNos.getInt(4 * j);
+            }
+            for (int stringNo : stringNos) {
+                if (stringNo < 0 || stringNo >= stringCount) {
+                    throw corrupt("invalid string no " + stringNo);
+                }
+                stringsUsed = Math.max(stringsUsed, stringNo + 1);
+            }
+            entries[i] = stringNos;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        // the used strings end where the next string starts, or at the end
+        // of the config file
+        boolean last = stringsUsed == stringCount;
+        ByteBuffer stringOffsets = read(channel, size, stringIndex, 4 * (last ? stringsUsed : stringsUsed + 1));
+        long stringsStart = stringOffsets.getInt(0);
+        long stringsEnd = last ? size : stringOffsets.getInt(4 * stringsUsed);
+        if (stringsStart < dataStart || stringsEnd < stringsStart || stringsEnd > size) {
+            throw corrupt("invalid string table offsets");
+        }
+        ByteBuffer stringTable = read(channel, size, stringsStart, (int) (stringsEnd - stringsStart));
+
+        // decode the strings of the loaded entries, every string only once
+        String[] strings = new String[stringsUsed];
+        for (int[] stringNos : entries) {
+            String path = string(stringTable, stringsStart, stringOffsets, stringNos[0], strings);
+            String[] attributes = null;
+            if (stringNos.length > 1) {
+                attributes = new String[stringNos.length - 1];
+                for (int j = 0; j < attributes.length; j++) {
+                    attributes[j] = string(stringTable, stringsStart, stringOffsets, stringNos[1 + j], strings);
+                }
+            }
+            recentFilesList.addLast(new RecentFile(new File(path), attributes));
+        }
+    }
+
+    @Override
+    long writeSnapshot(RecentFile[] snapshot) throws IOException {
+
+        // the string table with the string no of every distinct string
+        final ArrayList<byte[]> stringTable = new ArrayList<>();
+        HashMap<String, Integer> stringNos = new HashMap<>();
+
+        // encode the entries with references into the string table
+        final int[][] entries = new int[snapshot.length][];
+        for (int i = 0; i < snapshot.length; i++) {
+            String[] attributes = snapshot[i].attributes();
+            int attributeCount = attributes == null ? 0 : attributes.length;
+            int[] entry = new int[2 + attributeCount];
+            entry[0] = stringNo(snapshot[i].getFile().getAbsolutePath(), stringNos, stringTable);
+            entry[1] = attributeCount;
+            for (int j = 0; j < attributeCount; j++) {
+                entry[2 + j] = stringNo(attributes[j], stringNos, stringTable);
+            }
+            entries[i] = entry;
+        }
+
+        return writeAtomically(configFile, new ContentWriter() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+
+                // the header
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeInt(entries.length);
+                data.writeInt(stringTable.size());
+
+                // the index block: the entry offsets and then the string offsets
+                int offset = HEADER_SIZE + 4 * (entries.length + stringTable.size());
+                for (int[] entry : entries) {
+                    data.writeInt(offset);
+                    offset += 4 * entry.length;
+                }
+                for (byte[] string : stringTable) {
+                    data.writeInt(offset);
+                    offset += 4 + string.length;
+                }
+
+                // the entries
+                for (int[] entry : entries) {
+                    for (int value : entry) {
+                        data.writeInt(value);
+                    }
+                }
+
+                // the string table
+                for (byte[] string : stringTable) {
+                    data.writeInt(string.length);
+                    data.write(string);
+                }
+                data.flush();
+            }
+        });
+    }
+
+    /**
+     * gets the string no of the string, adding the string to the string table
+     * if it is not there yet
+     *
+     * @param string the string
+     * @param stringNos the string nos of the strings in the string table
+     * @param stringTable the encoded strings of the string table
+     * @return the string no
+     */
+    private static int stringNo(String string, HashMap<String, Integer> stringNos, ArrayList<byte[]> stringTable) {
+        if (string == null) {
+            string = "";
+        }
+        Integer stringNo = stringNos.get(string);
+        if (stringNo == null) {
+            stringNo = stringTable.size();
+            stringNos.put(string, stringNo);
+            stringTable.add(string.getBytes(RecentFilesCodec.UTF8));
+        }
+        return stringNo;
+    }
+
+    /**
+     * decodes a string of the string table, decoding every string only once
+     *
+     * @param stringTable the read part of the string table
+     * @param stringsStart the offset of the read part in the config file
+     * @param stringOffsets the offsets of the strings of the read part
+     * @param stringNo the string no
+     * @param strings the strings decoded so far by string no
+     * @return the string
+     * @throws IOException if the string offset or length is invalid
+     */
+    private String string(ByteBuffer stringTable, long stringsStart, ByteBuffer stringOffsets,
+            int stringNo, String[] strings) throws IOException {
+        String string = strings[stringNo];
+        if (string == null) {
+            long offset = stringOffsets.getInt(4 * stringNo) - stringsStart;
+            if (offset < 0 || offset > stringTable.limit() - 4) {
+                throw corrupt("invalid string offset " + (offset + stringsStart));
+            }
+            int length = stringTable.getInt((int) offset);
+            if (length < 0 || length > stringTable.limit() - offset - 4) {
+                throw corrupt("invalid string length " + length);
+            }
+            string = new String(stringTable.array(), (int) offset + 4, length, RecentFilesCodec.UTF8);
+            strings[stringNo] = string;
+        }
+        return string;
+    }
+
+    /**
+     * reads a part of the config file
+     *
+     * @param channel the config file channel
+     * @param size the size of the config file
+     * @param position the offset of the part
+     * @param length the length of the part
+     * @return the read part, from position 0
+     * @throws IOException if the part is not within the config file, or
+     * could not be read
+     */
+    private ByteBuffer read(FileChannel channel, long size, long position, int length) throws IOException {
+        if (position < 0 || length < 0 || position + length > size) {
+            throw corrupt("invalid offset " + position + " or length " + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Recent files config file truncated while reading " + configFile);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * creates the exception reporting a corrupt config file
+     *
+     * @param reason what is corrupt
+     * @return the exception
+     */
+    private IOException corrupt(String reason) {
+        return new IOException("Corrupt recent files config file " + configFile + ": " + reason);
+    }
+}
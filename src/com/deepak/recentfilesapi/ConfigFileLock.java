@@ -0,0 +1,210 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * the ConfigFileLock coordinates the processes sharing a config file through
+ * a lock file next to it. the lock file is locked around every access of the
+ * config file, and holds a generation no which is counted up on every save,
+ * so a process can tell cheaply whether another process changed the config
+ * file since it last read or wrote it.
+ * <p>
+ * file locks are held by the whole process, so the locks of one config file
+ * are also serialized inside the process
+ *
+ * @author deepak
+ */
+class ConfigFileLock implements Closeable {
+
+    /**
+     * the in process locks by lock file path
+     */
+    private static final HashMap<String, ReentrantLock> PROCESS_LOCKS = new HashMap<>();
+    /**
+     * the lock file
+     */
+    private final File lockFile;
+    /**
+     * the in process lock of the lock file
+     */
+    private final ReentrantLock processLock;
+    /**
+     * the opened lock file
+     */
+    private final RandomAccessFile file;
+    /**
+     * the held file lock, guarded by the process lock
+     */
+    private FileLock fileLock = null;
+    /**
+     * the last read or written generation no, guarded by the process lock
+     */
+    private long generation = 0;
+
+    /**
+     * opens the lock file of a config file, creating it if it doesnt exist
+     *
+     * @param configFile the config file
+     * @throws IOException if the lock file could not be opened
+     */
+    ConfigFileLock(File configFile) throws IOException {
+        this.lockFile = new File(configFile.getPath() + ".lock");
+        String path = lockFile.getCanonicalPath();
+        synchronized (PROCESS_LOCKS) {
+            ReentrantLock lock = PROCESS_LOCKS.get(path);
+            if (lock == null) {
+                lock = new ReentrantLock();
+                PROCESS_LOCKS.put(path, lock);
+            }
+            this.processLock = lock;
+        }
+        this.file = new RandomAccessFile(lockFile, "rw");
+    }
+
+    /**
+     * getter for the lock file
+     *
+     * @return the lock file
+     */
+    File getLockFile() {
+        return lockFile;
+    }
+
+    /**
+     * locks the config file for writing, waiting for the other processes
+     *
+     * @throws IOException if the lock file could not be locked
+     */
+    void lock() throws IOException {
+        lock(false);
+    }
+
+    /**
+     * locks the config file for reading, waiting for a writing process
+     *
+     * @throws IOException if the lock file could not be locked
+     */
+    void lockShared() throws IOException {
+        lock(true);
+    }
+
+    /**
+     * unlocks the config file
+     *
+     * @throws IOException if the lock file could not be unlocked
+     */
+    void unlock() throws IOException {
+        try {
+            FileLock held = fileLock;
+            fileLock = null;
+            if (held != null && held.isValid()) {
+                held.release();
+            }
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * reads the generation no from the lock file. called holding the lock
+     *
+     * @return the generation no, 0 for a new lock file
+     * @throws IOException if the lock file could not be read
+     */
+    long readGeneration() throws IOException {
+        FileChannel channel = file.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+        }
+        generation = buffer.hasRemaining() ? 0 : buffer.getLong(0);
+        return generation;
+    }
+
+    /**
+     * counts up the generation no in the lock file. called holding the lock
+     * for writing, before the config file is written
+     *
+     * @return the new generation no
+     * @throws IOException if the lock file could not be written
+     */
+    long nextGeneration() throws IOException {
+        long next = readGeneration() + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(0, next);
+        FileChannel channel = file.getChannel();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        generation = next;
+        return next;
+    }
+
+    /**
+     * getter for the last read or written generation no
+     *
+     * @return the generation no
+     */
+    long getGeneration() {
+        processLock.lock();
+        try {
+            return generation;
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * closes the lock file, waiting for the lock to be released
+     *
+     * @throws IOException if the lock file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        processLock.lock();
+        try {
+            file.close();
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * locks the config file
+     *
+     * @param shared true to lock for reading
+     * @throws IOException if the lock file could not be locked
+     */
+    private void lock(boolean shared) throws IOException {
+        processLock.lock();
+        try {
+            fileLock = file.getChannel().lock(0, Long.MAX_VALUE, shared);
+        } catch (IOException | RuntimeException ex) {
+            processLock.unlock();
+            throw ex;
+        }
+    }
+}
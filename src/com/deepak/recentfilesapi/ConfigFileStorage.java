@@ -0,0 +1,222 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * the ConfigFileStorage saves the whole recent files list to the config file.
+ * <p>
+ * the v2 config file starts with a version header record, followed by one
+ * record per recent file from the most recent to the least recent one. each
+ * record holds the file path and then the file attributes, so the file is read
+ * in a single streaming pass. v0.1 config files, which stored the list as
+ * java.util.Properties, are migrated to v2 when they are loaded
+ *
+ * @author deepak
+ */
+class ConfigFileStorage extends RecentFilesStorage {
+
+    /**
+     * the version header record of the v2 config file
+     */
+    static final String V2_HEADER = "#RecentFilesAPI v2";
+    /**
+     * the recent file config file object
+     */
+    final File configFile;
+
+    /**
+     * creates a config file storage
+     *
+     * @param configFile the recent files config file
+     */
+    ConfigFileStorage(File configFile) {
+        this.configFile = configFile;
+    }
+
+    @Override
+    protected List<RecentFile> load(int maxRecords) throws IOException {
+        RecentFilesList recentFilesList = new RecentFilesList();
+        loadList(recentFilesList, maxRecords);
+        return Arrays.asList(recentFilesList.toArray());
+    }
+
+    @Override
+    public File getConfigFile() {
+        return configFile;
+    }
+
+    /**
+     * loads the saved recent files to the end of the recent files list
+     *
+     * @param recentFilesList the recent files list to be loaded
+     * @param maxRecords the maximum no of recent files to be loaded
+     * @throws IOException if the recent files could not be loaded
+     */
+    void loadList(RecentFilesList recentFilesList, int maxRecords) throws IOException {
+        // migrate a v0.1 config file to v2. a new empty config file is left
+        // as it is, so that processes sharing it dont race to migrate it
+        if (!loadText(recentFilesList, maxRecords) && configFile.length() > 0) {
+            writeSnapshot(recentFilesList.toArray());
+        }
+    }
+
+    /**
+     * loads a v2 or a v0.1 config file
+     *
+     * @param recentFilesList the recent files list to be loaded
+     * @param maxRecords the maximum no of recent files to be loaded
+     * @return true if the config file is a v2 config file, false if it is a
+     * v0.1 config file
+     * @throws IOException if the config file could not be loaded
+     */
+    boolean loadText(RecentFilesList recentFilesList, int maxRecords) throws IOException {
+        try (InputStream in = new FileInputStream(configFile)) {
+            RecentFilesCodec.RecordReader reader = new RecentFilesCodec.RecordReader(in);
+
+            // check the version header
+            List<String> fields = reader.next();
+            if (fields != null && fields.size() == 1 && V2_HEADER.equals(fields.get(0))) {
+                // read the records in a single pass
+                while (recentFilesList.size() < maxRecords && (fields = reader.next()) != null) {
+                    recentFilesList.addLast(RecentFilesCodec.toRecentFile(fields, 0));
+                }
+                return true;
+            }
+        }
+
+        // the config file is a v0.1 config file
+        loadV01(recentFilesList, maxRecords);
+        return false;
+    }
+
+    @Override
+    protected long write(RecentFile[] snapshot, List<RecentFileChange> changes) throws IOException {
+        return writeSnapshot(snapshot);
+    }
+
+    /**
+     * method to write the recent files with their attributes to the config file
+     *
+     * @param snapshot the recent files snapshot to be written
+     *
+     * @return the no of bytes written
+     *
+     * @throws IOException
+     */
+    long writeSnapshot(RecentFile[] snapshot) throws IOException {
+
+        // encode the header and the recent files records
+        StringBuilder records = new StringBuilder(V2_HEADER).append('\n');
+        for (RecentFile recentFile : snapshot) {
+            RecentFilesCodec.appendRecentFile(records, recentFile);
+            records.append('\n');
+        }
+        final byte[] bytes = records.toString().getBytes(RecentFilesCodec.UTF8);
+
+        // save the records to the config file
+        return writeAtomically(configFile, new ContentWriter() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                out.write(bytes);
+            }
+        });
+    }
+
+    /**
+     * loads a v0.1 config file. the keys of the properties are the file index
+     * followed by the attribute index, where the attribute index 0 gives the
+     * file name
+     *
+     * @param recentFilesList the recent files list to be loaded
+     * @param maxRecords the maximum no of recent files to be loaded
+     * @throws IOException if the config file could not be loaded, or is
+     * corrupt
+     */
+    private void loadV01(RecentFilesList recentFilesList, int maxRecords) throws IOException {
+
+        // create a properties object
+        Properties properties = new Properties();
+
+        // load the properties from the config file. a malformed unicode
+        // escape is a corrupt config file
+        try (InputStream in = new FileInputStream(configFile)) {
+            properties.load(in);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Corrupt recent files config file " + configFile + ": " + ex.getMessage(), ex);
+        }
+
+        // the recent file name string
+        String fileName;
+
+        // the recent file attribute string
+        String attribute;
+
+        // the recent file attribute list
+        ArrayList<String> attributeList;
+
+        // for the maximun no of recent records
+        for (int i = 0; i < maxRecords; i++) {
+
+            // the value for key 'x0' gives the file name
+            fileName = properties.getProperty(String.valueOf(i) + 0);
+
+            // if file name is not equal to null then
+            if (fileName != null) {
+
+                // create the attribute list
+                attributeList = new ArrayList<String>();
+
+                // the value of j starts with 1 as the value 0 is already used for the file name.
+                // the attributes end at the first missing attribute index
+                for (int j = 1; j < properties.size(); j++) {
+
+                    // get the attribute
+                    attribute = properties.getProperty(String.valueOf(i) + String.valueOf(j));
+
+                    // if the returned attribute is not null then
+                    if (attribute != null) {
+                        // add the attribute to the attribute list
+                        attributeList.add(attribute);
+                    } else {
+                        // else if the attribute is null then it means
+                        // the attribute for the file specified by the value 'i' is over
+                        // so then break the search for the attribute for the file
+                        break;
+                    }
+                }
+
+                // convert the attributes list into attributes array, if there are any
+                String[] attributesArray = attributeList.size() > 0
+                        ? attributeList.toArray(new String[0])
+                        : null;
+
+                // add the recent file to the end of the recent files list
+                recentFilesList.addLast(new RecentFile(new File(fileName), attributesArray));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * the ConfigFileWatcher watches a file for changes on a background thread.
+ * all the change events which arrive together are reported as one change
+ *
+ * @author deepak
+ */
+class ConfigFileWatcher implements Closeable {
+
+    /**
+     * the watch service of the folder of the file
+     */
+    private final WatchService watchService;
+
+    /**
+     * starts watching a file
+     *
+     * @param watchedFile the watched file
+     * @param onChange called on the watcher thread when the file changed
+     * @throws IOException if the folder of the file could not be watched
+     */
+    ConfigFileWatcher(File watchedFile, final Runnable onChange) throws IOException {
+        final Path name = watchedFile.toPath().getFileName();
+        Path folder = watchedFile.getAbsoluteFile().toPath().getParent();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        // wait for the next events and take all the events
+                        // which arrived meanwhile
+                        boolean changed = false;
+                        WatchKey key = watchService.take();
+                        while (key != null) {
+                            for (WatchEvent<?> event : key.pollEvents()) {
+                                changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                                        || name.equals(event.context());
+                            }
+                            key.reset();
+                            key = watchService.poll();
+                        }
+                        if (changed) {
+                            onChange.run();
+                        }
+                    }
+                } catch (InterruptedException | ClosedWatchServiceException ex) {
+                    // the watcher is closed
+                }
+            }
+        }, "RecentFilesWatcher");
+        // the watcher thread must not keep the application alive
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * stops watching the file
+     *
+     * @throws IOException if the watch service could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileSystemView;
+
+/**
+ * the FileIconLoader loads the platform icons of files, or small thumbnails of
+ * image files, on background threads. the loaded icons are kept in a size
+ * bounded least recently used cache of soft references, which is shared by
+ * all the recent files menus. a file without an icon is cached too, so that
+ * it is not loaded again every time it is shown.
+ * <p>
+ * a file is loaded only once at a time, however often its icon is asked for
+ * meanwhile. the requests wait in a bounded queue: when it is full the oldest
+ * request is dropped, and a request whose file is no longer shown by the time
+ * a loader thread gets to it is skipped
+ *
+ * @author deepak
+ */
+final class FileIconLoader {
+
+    /**
+     * the receiver of a loaded icon
+     */
+    interface Callback {
+
+        /**
+         * called on the event dispatch thread when the icon is loaded
+         *
+         * @param icon the loaded icon
+         */
+        void iconLoaded(Icon icon);
+
+        /**
+         * called on a loader thread before the icon is loaded
+         *
+         * @return true if the icon is still wanted, false if the file is no
+         * longer shown
+         */
+        boolean isWanted();
+    }
+    /**
+     * the cached icon of a file which doesnt exist or has no icon
+     */
+    static final Icon NO_ICON = new ImageIcon();
+    /**
+     * the maximum no of cached icons
+     */
+    private static final int MAX_CACHE_SIZE = 256;
+    /**
+     * the width and height of the thumbnails
+     */
+    private static final int THUMBNAIL_SIZE = 16;
+    /**
+     * the maximum size in bytes of an image file which gets a thumbnail
+     */
+    private static final long MAX_THUMBNAIL_FILE_SIZE = 4 * 1024 * 1024;
+    /**
+     * the maximum no of queued icon requests
+     */
+    private static final int MAX_QUEUED = 64;
+    /**
+     * the lower case suffixes of the image files which get a thumbnail
+     */
+    private static final HashSet<String> IMAGE_SUFFIXES = new HashSet<>(Arrays.asList(ImageIO.getReaderFileSuffixes()));
+    /**
+     * the cached icons by path key, least recently used first
+     */
+    private static final LinkedHashMap<String, SoftReference<Icon>> CACHE = new LinkedHashMap<String, SoftReference<Icon>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Icon>> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+    /**
+     * the receivers of the icons being loaded by path key, guarded by the
+     * cache
+     */
+    private static final HashMap<String, List<Callback>> LOADING = new HashMap<>();
+    /**
+     * the loader threads, which end when they are idle. when the queue is
+     * full the oldest request is dropped, as its file has most likely been
+     * paged or scrolled out of sight by now
+     */
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            2, 2, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    // the loader threads must not keep the application alive
+                    Thread thread = new Thread(runnable, "RecentFilesIconLoader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new RejectedExecutionHandler() {
+                @Override
+                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest != null) {
+                        ((Load) oldest).drop();
+                    }
+                    executor.execute(runnable);
+                }
+            });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * no instances
+     */
+    private FileIconLoader() {
+    }
+
+    /**
+     * gets the cached icon of the recent file
+     *
+     * @param recentFile the recent file
+     * @return the cached icon, NO_ICON if the file has no icon, or null if
+     * it is not cached
+     */
+    static Icon getCached(RecentFile recentFile) {
+        synchronized (CACHE) {
+            SoftReference<Icon> reference = CACHE.get(recentFile.getKey());
+            return reference == null ? null : reference.get();
+        }
+    }
+
+    /**
+     * loads the icon of the recent file on a background thread. the callback
+     * is not called if the file doesnt exist or has no icon. if the icon is
+     * being loaded already, the callback is called with the icon being loaded
+     *
+     * @param recentFile the recent file
+     * @param callback the receiver of the loaded icon
+     */
+    static void load(RecentFile recentFile, Callback callback) {
+        synchronized (CACHE) {
+            List<Callback> callbacks = LOADING.get(recentFile.getKey());
+            if (callbacks != null) {
+                callbacks.add(callback);
+                return;
+            }
+            callbacks = new ArrayList<>(1);
+            callbacks.add(callback);
+            LOADING.put(recentFile.getKey(), callbacks);
+        }
+        EXECUTOR.execute(new Load(recentFile));
+    }
+
+    /**
+     * loads the thumbnail of an image file or the platform icon of any other
+     * file
+     *
+     * @param file the file
+     * @return the icon or null if the file doesnt exist or has no icon
+     */
+    private static Icon loadIcon(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0 && file.length() <= MAX_THUMBNAIL_FILE_SIZE
+                && IMAGE_SUFFIXES.contains(name.substring(dot + 1).toLowerCase(Locale.ENGLISH))) {
+            try {
+                BufferedImage image = ImageIO.read(file);
+                if (image != null) {
+                    // scale the longer side of the image to the thumbnail size
+                    boolean wide = image.getWidth() >= image.getHeight();
+                    return new ImageIcon(image.getScaledInstance(
+                            wide ? THUMBNAIL_SIZE : -1, wide ? -1 : THUMBNAIL_SIZE, Image.SCALE_SMOOTH));
+                }
+            } catch (IOException ex) {
+                Logger.getLogger(FileIconLoader.class.getName()).log(Level.FINE, null, ex);
+            }
+        }
+        return FileSystemView.getFileSystemView().getSystemIcon(file);
+    }
+
+    /**
+     * a queued load of the icon of a recent file
+     */
+    private static final class Load implements Runnable {
+
+        /**
+         * the recent file
+         */
+        private final RecentFile recentFile;
+
+        /**
+         * creates a load
+         *
+         * @param recentFile the recent file
+         */
+        Load(RecentFile recentFile) {
+            this.recentFile = recentFile;
+        }
+
+        @Override
+        public void run() {
+            String key = recentFile.getKey();
+            synchronized (CACHE) {
+                // skip the load if the file is no longer shown
+                boolean wanted = false;
+                for (Callback callback : LOADING.get(key)) {
+                    wanted |= callback.isWanted();
+                }
+                if (!wanted) {
+                    LOADING.remove(key);
+                    return;
+                }
+            }
+
+            final Icon icon = loadIcon(recentFile.getFile());
+            final List<Callback> callbacks;
+            synchronized (CACHE) {
+                CACHE.put(key, new SoftReference<>(icon == null ? NO_ICON : icon));
+                callbacks = LOADING.remove(key);
+            }
+            if (icon == null) {
+                return;
+            }
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    for (Callback callback : callbacks) {
+                        callback.iconLoaded(icon);
+                    }
+                }
+            });
+        }
+
+        /**
+         * drops the load from the queue, so that the icon is loaded again
+         * when it is asked for the next time
+         */
+        void drop() {
+            synchronized (CACHE) {
+                LOADING.remove(recentFile.getKey());
+            }
+        }
+    }
+}
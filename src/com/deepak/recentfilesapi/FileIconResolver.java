@@ -0,0 +1,142 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.swing.ImageIcon;
+
+/**
+ * the FileIconResolver finds the icon of a file name from a file icon types
+ * array. the file types are hashed once, and a file name is resolved by
+ * looking up its suffixes of the registered file type lengths, longest first,
+ * so that a compound extension like ".tar.gz" wins over ".gz". the empty file
+ * type gives the default icon for the file names which match no other file
+ * type. the resolved icons are memoized by the extension of the file name, the
+ * part from its first dot within the longest file type length, so that all the
+ * files with the same extension share one memo entry. when a file type does
+ * not start with a dot, the icons are memoized by that whole suffix instead
+ *
+ * @author deepak
+ */
+class FileIconResolver {
+
+    /**
+     * the maximum no of memoized icons
+     */
+    private static final int MAX_MEMO_SIZE = 256;
+    /**
+     * the icons by file type. for a file type registered more than once the
+     * first file icon type wins
+     */
+    private final HashMap<String, ImageIcon> icons = new HashMap<>();
+    /**
+     * the distinct lengths of the non empty file types, longest first
+     */
+    private final int[] lengths;
+    /**
+     * true if all the non empty file types start with a dot, so that the
+     * extension of a file name decides its icon
+     */
+    private final boolean dottedTypes;
+    /**
+     * the default icon or null if there is none
+     */
+    private final ImageIcon defaultIcon;
+    /**
+     * the resolved icons by file name extension, least recently used first
+     */
+    private final LinkedHashMap<String, ImageIcon> memo = new LinkedHashMap<String, ImageIcon>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImageIcon> eldest) {
+            return size() > MAX_MEMO_SIZE;
+        }
+    };
+
+    /**
+     * creates a file icon resolver. later changes to the file icon types are
+     * not seen by the resolver
+     *
+     * @param fileIconTypes the file icon type array. may be null
+     */
+    FileIconResolver(FileIconTypes[] fileIconTypes) {
+        TreeSet<Integer> typeLengths = new TreeSet<>();
+        boolean dotted = true;
+        if (fileIconTypes != null) {
+            for (FileIconTypes fileIconType : fileIconTypes) {
+                String fileType = fileIconType.getFileType();
+                if (fileType != null && !icons.containsKey(fileType)) {
+                    icons.put(fileType, fileIconType.getIcon());
+                    if (!fileType.isEmpty()) {
+                        typeLengths.add(fileType.length());
+                        dotted &= fileType.charAt(0) == '.';
+                    }
+                }
+            }
+        }
+        lengths = new int[typeLengths.size()];
+        int i = 0;
+        for (Integer length : typeLengths.descendingSet()) {
+            lengths[i++] = length;
+        }
+        dottedTypes = dotted;
+        defaultIcon = icons.get("");
+    }
+
+    /**
+     * finds the icon of the file name
+     *
+     * @param fileName the file name
+     * @return the icon of the longest matching file type, the default icon if
+     * no file type matches, or null if there is no default icon
+     */
+    synchronized ImageIcon resolve(String fileName) {
+        if (lengths.length == 0) {
+            return defaultIcon;
+        }
+
+        // only the suffix of the longest file type length decides the icon,
+        // and of it only the extension if every file type starts with a dot.
+        // a matching file type starts at a dot of the suffix, so it is a
+        // suffix of the extension too
+        String suffix = fileName.length() > lengths[0]
+                ? fileName.substring(fileName.length() - lengths[0])
+                : fileName;
+        if (dottedTypes) {
+            int dot = suffix.indexOf('.');
+            suffix = dot < 0 ? "" : suffix.substring(dot);
+        }
+        if (memo.containsKey(suffix)) {
+            return memo.get(suffix);
+        }
+
+        ImageIcon icon = defaultIcon;
+        for (int length : lengths) {
+            if (length <= suffix.length()) {
+                String fileType = suffix.substring(suffix.length() - length);
+                if (icons.containsKey(fileType)) {
+                    icon = icons.get(fileType);
+                    break;
+                }
+            }
+        }
+        memo.put(suffix, icon);
+        return icon;
+    }
+}
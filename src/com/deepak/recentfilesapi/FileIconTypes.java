@@ -21,7 +21,8 @@ import javax.swing.ImageIcon;
 /**
  * this class provides methods for specifying icons for file types which will be
  * used by the RecentFileManger for setting the JMenuItem icon for a particular
- * file type
+ * file type. when more than one file type matches the end of a file name, the
+ * longest one is used, so ".tar.gz" wins over ".gz"
  *
  * @author deepak
  */
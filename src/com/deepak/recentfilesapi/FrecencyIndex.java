@@ -0,0 +1,345 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * the FrecencyIndex ranks recent files by frecency, the frequency of their
+ * accesses weighted by how recent the accesses are. the weight of an access
+ * halves every half life, so the frecency of a file is the sum of 2^((t - now)
+ * / half life) over its access times t.
+ * <p>
+ * as all the weights decay alike, the order only depends on the sums of
+ * 2^(t / half life), which never change between accesses. the index keeps the
+ * logarithms of these sums, so an access updates one rank in logarithmic time
+ * and nothing is ever recomputed for the passing time. the ranks are kept in a
+ * sorted set, and the lowest ranked files are dropped beyond the maximum no of
+ * tracked files
+ *
+ * @author deepak
+ */
+class FrecencyIndex {
+
+    /**
+     * the header field of a frecency file
+     */
+    private static final String HEADER = "#RecentFilesAPI frecency v1";
+    /**
+     * the rank order, the highest rank first and the last ranked of equal
+     * ranks first
+     */
+    private static final Comparator<Entry> RANK_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int c = Double.compare(e2.rank, e1.rank);
+            return c != 0 ? c : Long.compare(e2.order, e1.order);
+        }
+    };
+    /**
+     * the half life of the access weights in milliseconds
+     */
+    private final long halfLife;
+    /**
+     * the maximum no of tracked recent files
+     */
+    private final int maxEntries;
+    /**
+     * the entries by path key
+     */
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    /**
+     * the entries in rank order
+     */
+    private final TreeSet<Entry> ranking = new TreeSet<>(RANK_ORDER);
+    /**
+     * the no of the last ranked entry
+     */
+    private long order = 0;
+    /**
+     * the search index kept up to date with the tracked files, or null
+     */
+    private TrigramIndex searchIndex = null;
+
+    /**
+     * creates an empty frecency index
+     *
+     * @param maxEntries the maximum no of tracked recent files
+     * @param halfLife the half life of the access weights in milliseconds
+     */
+    FrecencyIndex(int maxEntries, long halfLife) {
+        this.maxEntries = maxEntries;
+        this.halfLife = halfLife;
+    }
+
+    /**
+     * sets the search index to be kept up to date with the tracked files, and
+     * indexes the tracked files, the lowest ranked as the least recent
+     *
+     * @param searchIndex the search index, or null to stop updating it
+     */
+    void setSearchIndex(TrigramIndex searchIndex) {
+        this.searchIndex = searchIndex;
+        if (searchIndex != null) {
+            searchIndex.clear();
+            for (Iterator<Entry> i = ranking.descendingIterator(); i.hasNext();) {
+                searchIndex.add(i.next().recentFile, true);
+            }
+        }
+    }
+
+    /**
+     * records an access of a recent file, replacing its entry
+     *
+     * @param recentFile the accessed recent file
+     * @param time the access time in milliseconds
+     * @return the recent file dropped from the index to keep its size, or null
+     */
+    RecentFile access(RecentFile recentFile, long time) {
+        return put(recentFile, time * Math.log(2) / halfLife);
+    }
+
+    /**
+     * adds a rank to the rank of a recent file, replacing its entry
+     *
+     * @param recentFile the recent file
+     * @param rank the logarithm of the access weight sum to be added
+     * @return the recent file dropped from the index to keep its size, or null
+     */
+    RecentFile put(RecentFile recentFile, double rank) {
+        Entry entry = entries.get(recentFile.getKey());
+        if (entry == null) {
+            entry = new Entry();
+            entry.rank = rank;
+            entries.put(recentFile.getKey(), entry);
+        } else {
+            ranking.remove(entry);
+            // log(e^a + e^b) without overflowing
+            double max = Math.max(entry.rank, rank);
+            entry.rank = max + Math.log1p(Math.exp(Math.min(entry.rank, rank) - max));
+        }
+        entry.recentFile = recentFile;
+        entry.order = ++order;
+        ranking.add(entry);
+        if (searchIndex != null) {
+            searchIndex.add(recentFile, true);
+        }
+
+        // drop the lowest ranked recent file beyond the maximum size
+        if (entries.size() > maxEntries) {
+            Entry lowest = ranking.pollLast();
+            entries.remove(lowest.recentFile.getKey());
+            if (searchIndex != null) {
+                searchIndex.remove(lowest.recentFile.getKey());
+            }
+            return lowest.recentFile;
+        }
+        return null;
+    }
+
+    /**
+     * removes a recent file
+     *
+     * @param key the path key of the recent file
+     * @return true if the index contained the recent file
+     */
+    boolean remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        ranking.remove(entry);
+        if (searchIndex != null) {
+            searchIndex.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * checks whether a recent file is tracked
+     *
+     * @param key the path key of the recent file
+     * @return true if the index contains the recent file
+     */
+    boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * compares the ranks of two recent files
+     *
+     * @param key1 the path key of the first recent file
+     * @param key2 the path key of the second recent file
+     * @return a negative no if the first recent file ranks higher, a positive
+     * no if it ranks lower
+     */
+    int compare(String key1, String key2) {
+        return RANK_ORDER.compare(entries.get(key1), entries.get(key2));
+    }
+
+    /**
+     * gets the recent file ranked right below a recent file
+     *
+     * @param key the path key of the recent file, or null for the top ranked
+     * one
+     * @return the next recent file, or null if there is none
+     */
+    RecentFile next(String key) {
+        Entry entry = key == null ? (ranking.isEmpty() ? null : ranking.first()) : ranking.higher(entries.get(key));
+        return entry == null ? null : entry.recentFile;
+    }
+
+    /**
+     * getter for the top ranked recent files
+     *
+     * @param count the maximum no of recent files
+     * @return the top ranked recent files, the highest ranked first
+     */
+    List<RecentFile> top(int count) {
+        List<RecentFile> top = new ArrayList<>(Math.min(count, ranking.size()));
+        for (Entry entry : ranking) {
+            if (top.size() == count) {
+                break;
+            }
+            top.add(entry.recentFile);
+        }
+        return top;
+    }
+
+    /**
+     * getter for the no of tracked recent files
+     *
+     * @return the no of recent files in the index
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * gives the tracked recent files new path keys, adding up the ranks of
+     * the recent files which get the same key
+     *
+     * @param keys the new keys by old key
+     */
+    void rekey(HashMap<String, String> keys) {
+        Entry[] ranked = ranking.toArray(new Entry[ranking.size()]);
+        entries.clear();
+        ranking.clear();
+        if (searchIndex != null) {
+            searchIndex.clear();
+        }
+        // put the lowest ranked first, to keep the order of equal ranks
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            RecentFile recentFile = ranked[i].recentFile;
+            String key = keys.get(recentFile.getKey());
+            put(key == null ? recentFile : recentFile.withKey(key), ranked[i].rank);
+        }
+    }
+
+    /**
+     * getter for the path keys of the tracked recent files
+     *
+     * @return the path keys
+     */
+    List<String> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * loads the ranks saved from encode(). ranks saved with another half life
+     * are scaled to the half life of the index
+     *
+     * @param file the frecency file
+     * @return false if the file doesnt exist
+     * @throws IOException if the file could not be read
+     */
+    boolean load(File file) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            RecentFilesCodec.RecordReader reader = new RecentFilesCodec.RecordReader(in);
+            List<String> fields = reader.next();
+            if (fields == null || fields.size() < 2 || !HEADER.equals(fields.get(0))) {
+                return false;
+            }
+            double scale = Double.parseDouble(fields.get(1)) / halfLife;
+
+            // the records are saved in rank order, so put the lowest first
+            ArrayList<List<String>> records = new ArrayList<>();
+            while ((fields = reader.next()) != null) {
+                if (fields.size() >= 2) {
+                    records.add(fields);
+                }
+            }
+            for (int i = records.size() - 1; i >= 0; i--) {
+                List<String> record = records.get(i);
+                try {
+                    put(RecentFilesCodec.toRecentFile(record, 1), Double.parseDouble(record.get(0)) * scale);
+                } catch (NumberFormatException ex) {
+                    // skip a damaged record
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * encodes the ranks of all the tracked recent files for load(File)
+     *
+     * @return the content of the frecency file
+     */
+    byte[] encode() {
+        StringBuilder records = new StringBuilder();
+        RecentFilesCodec.appendField(records, HEADER);
+        records.append('\t').append(halfLife).append('\n');
+        for (Entry entry : ranking) {
+            records.append(entry.rank).append('\t');
+            RecentFilesCodec.appendRecentFile(records, entry.recentFile);
+            records.append('\n');
+        }
+        return records.toString().getBytes(RecentFilesCodec.UTF8);
+    }
+
+    /**
+     * the rank of a recent file
+     */
+    private static class Entry {
+
+        /**
+         * the recent file
+         */
+        private RecentFile recentFile;
+        /**
+         * the logarithm of the access weight sum
+         */
+        private double rank;
+        /**
+         * the no telling which of equal ranks was ranked last
+         */
+        private long order;
+    }
+}
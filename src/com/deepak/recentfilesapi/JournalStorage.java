@@ -0,0 +1,329 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * the JournalStorage appends every change of the recent files list as one
+ * record to a journal file next to the config file. on loading, the journal is
+ * replayed over the config file snapshot. once the journal grows past the
+ * compaction threshold, the snapshot is rewritten on a background thread and
+ * the records it covers are dropped from the journal.
+ * <p>
+ * replaying the same records twice gives the same list as replaying them once,
+ * so a crash between rewriting the snapshot and trimming the journal is safe.
+ * when the config file is shared, other processes append to the same journal,
+ * and a compaction only runs if no other process saved since the snapshot
+ *
+ * @author deepak
+ */
+class JournalStorage extends ConfigFileStorage {
+
+    /**
+     * the default journal size in bytes after which it is compacted
+     */
+    static final long DEFAULT_COMPACTION_THRESHOLD = 64 * 1024;
+    /**
+     * the operation field of a record which puts a recent file at the front
+     */
+    private static final String PUT = "+";
+    /**
+     * the operation field of a record which removes a recent file
+     */
+    private static final String REMOVE = "-";
+    /**
+     * the operation field of a record which puts a recent file in front of
+     * another one, or at the end if the other path is empty
+     */
+    private static final String INSERT = "<";
+    /**
+     * the operation field of a record which replaces a recent file in place
+     */
+    private static final String REPLACE = "=";
+    /**
+     * the journal file
+     */
+    private final File journalFile;
+    /**
+     * the journal size in bytes after which it is compacted
+     */
+    private final long compactionThreshold;
+    /**
+     * the current journal size in bytes
+     */
+    private long journalLength = 0;
+    /**
+     * the compaction thread executor, created on the first compaction
+     */
+    private ExecutorService compactor = null;
+    /**
+     * the running or last compaction
+     */
+    private Future<?> compaction = null;
+
+    /**
+     * creates a journal storage with the default compaction threshold
+     *
+     * @param configFile the recent files config file
+     */
+    JournalStorage(File configFile) {
+        this(configFile, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * creates a journal storage
+     *
+     * @param configFile the recent files config file
+     * @param compactionThreshold the journal size in bytes after which it is
+     * compacted
+     */
+    JournalStorage(File configFile, long compactionThreshold) {
+        super(configFile);
+        this.journalFile = new File(configFile.getPath() + ".journal");
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @Override
+    synchronized void loadList(RecentFilesList recentFilesList, int maxRecords) throws IOException {
+        // load the last snapshot
+        super.loadList(recentFilesList, maxRecords);
+
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        // replay the journal over the snapshot
+        RecentFilesCodec.RecordReader reader;
+        try (InputStream in = new FileInputStream(journalFile)) {
+            reader = new RecentFilesCodec.RecordReader(in);
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                replay(recentFilesList, fields);
+            }
+        }
+
+        // drop the evicted recent files which were not recorded
+        while (recentFilesList.size() > maxRecords) {
+            recentFilesList.removeLast();
+        }
+
+        // cut off a record which was torn by a crash, so that the next
+        // record is not appended to it
+        journalLength = reader.getCompleteLength();
+        if (reader.isTorn()) {
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.setLength(journalLength);
+            }
+        }
+    }
+
+    @Override
+    protected synchronized long write(RecentFile[] snapshot, List<RecentFileChange> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        // encode all the changes as one append
+        StringBuilder records = new StringBuilder();
+        for (RecentFileChange change : changes) {
+            switch (change.getType()) {
+                case ADDED:
+                case PROMOTED:
+                    records.append(PUT).append('\t');
+                    RecentFilesCodec.appendRecentFile(records, change.getRecentFile());
+                    break;
+                case INSERTED:
+                    // the path of the next recent file comes first, as the
+                    // recent file takes the remaining fields
+                    records.append(INSERT).append('\t');
+                    RecentFile next = change.getNext();
+                    RecentFilesCodec.appendField(records, next == null ? "" : next.getFile().getAbsolutePath());
+                    records.append('\t');
+                    RecentFilesCodec.appendRecentFile(records, change.getRecentFile());
+                    break;
+                case UPDATED:
+                    records.append(REPLACE).append('\t');
+                    RecentFilesCodec.appendRecentFile(records, change.getRecentFile());
+                    break;
+                case REMOVED:
+                case EVICTED:
+                    records.append(REMOVE).append('\t');
+                    RecentFilesCodec.appendField(records, change.getRecentFile().getFile().getAbsolutePath());
+                    break;
+            }
+            records.append('\n');
+        }
+        byte[] bytes = records.toString().getBytes(RecentFilesCodec.UTF8);
+        try (OutputStream out = new FileOutputStream(journalFile, true)) {
+            out.write(bytes);
+        }
+        // other processes sharing the journal may have appended to it too
+        journalLength = journalFile.length();
+
+        // compact the journal unless a compaction is still running
+        if (journalLength >= compactionThreshold && (compaction == null || compaction.isDone())) {
+            ConfigFileLock lock = fileLock;
+            compact(snapshot, journalLength, lock, lock == null ? 0 : lock.getGeneration());
+        }
+        return bytes.length;
+    }
+
+    @Override
+    protected void close() throws IOException {
+        Future<?> running;
+        synchronized (this) {
+            running = compaction;
+            if (compactor != null) {
+                compactor.shutdown();
+                compactor = null;
+            }
+        }
+        if (running != null) {
+            try {
+                running.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException ex) {
+                throw new IOException(ex.getCause());
+            }
+        }
+    }
+
+    /**
+     * applies a journal record to the recent files list
+     *
+     * @param recentFilesList the recent files list
+     * @param fields the record fields
+     */
+    private static void replay(RecentFilesList recentFilesList, List<String> fields) {
+        if (fields.size() < 2) {
+            return;
+        }
+        if (INSERT.equals(fields.get(0))) {
+            if (fields.size() < 3) {
+                return;
+            }
+            RecentFile recentFile = RecentFilesCodec.toRecentFile(fields, 2);
+            recentFilesList.remove(recentFile.getKey());
+            String next = fields.get(1).isEmpty() ? null : new RecentFile(new File(fields.get(1)), null).getKey();
+            if (next != null && recentFilesList.contains(next)) {
+                recentFilesList.addBefore(recentFile, next);
+            } else {
+                recentFilesList.addLast(recentFile);
+            }
+            return;
+        }
+        RecentFile recentFile = RecentFilesCodec.toRecentFile(fields, 1);
+        if (PUT.equals(fields.get(0))) {
+            recentFilesList.addFirst(recentFile);
+        } else if (REPLACE.equals(fields.get(0))) {
+            recentFilesList.replace(recentFile);
+        } else if (REMOVE.equals(fields.get(0))) {
+            recentFilesList.remove(recentFile.getKey());
+        }
+    }
+
+    /**
+     * starts a background compaction, which rewrites the snapshot and then
+     * drops the journal records covered by the snapshot
+     *
+     * @param snapshot the recent files snapshot
+     * @param coveredLength the journal size in bytes covered by the snapshot
+     * @param lock the lock of the shared config file, or null
+     * @param generation the generation no of the shared config file written
+     * with the snapshot
+     */
+    private void compact(final RecentFile[] snapshot, final long coveredLength,
+            final ConfigFileLock lock, final long generation) {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    // the compactor thread must not keep the application alive
+                    Thread thread = new Thread(runnable, "RecentFilesCompactor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        compaction = compactor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (lock == null) {
+                        writeSnapshot(snapshot);
+                        trimJournal(coveredLength);
+                        return;
+                    }
+                    lock.lock();
+                    try {
+                        // skip the compaction if another process saved since
+                        // the snapshot, the last saving process compacts
+                        if (lock.readGeneration() == generation) {
+                            writeSnapshot(snapshot);
+                            trimJournal(coveredLength);
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                } catch (IOException ex) {
+                    Logger.getLogger(JournalStorage.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * drops the leading journal records which are covered by the snapshot,
+     * keeping the records appended during the compaction
+     *
+     * @param coveredLength the journal size in bytes covered by the snapshot
+     * @throws IOException if the journal could not be trimmed
+     */
+    private synchronized void trimJournal(long coveredLength) throws IOException {
+        journalLength = journalFile.length();
+        final byte[] tail = new byte[(int) (journalLength - coveredLength)];
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "r")) {
+            file.seek(coveredLength);
+            file.readFully(tail);
+        }
+        writeAtomically(journalFile, new ContentWriter() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                out.write(tail);
+            }
+        });
+        journalLength = tail.length;
+    }
+}
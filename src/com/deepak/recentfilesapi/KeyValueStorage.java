@@ -0,0 +1,427 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * the KeyValueStorage keeps the recent files in the config file as an
+ * embedded transactional key-value store. the key is the path key of a recent
+ * file, so the spellings of a path share one entry, and the value its path,
+ * its attributes and a sequence no, which orders the recent files by their
+ * last put. a save appends one transaction holding a put for
+ * every added or promoted recent file and a delete for every removed or
+ * evicted one, so a promotion or removal writes a few bytes instead of the
+ * whole list.
+ * <p>
+ * a transaction is a length, a CRC-32 checksum and the operations, and it is
+ * forced to disk before the save returns. a transaction torn by a crash fails
+ * its checksum and is dropped as a whole when the store is loaded. once the
+ * file holds many more operations than recent files, it is rewritten with one
+ * put per recent file. text config files are converted when they are loaded
+ *
+ * @author deepak
+ */
+class KeyValueStorage extends ConfigFileStorage {
+
+    /**
+     * the magic no at the start of the key-value config file
+     */
+    static final int MAGIC = 0x52464B56;
+    /**
+     * the key-value layout version
+     */
+    static final int VERSION = 1;
+    /**
+     * the size in bytes of the header
+     */
+    private static final int HEADER_SIZE = 8;
+    /**
+     * the size in bytes of the length and checksum of a transaction
+     */
+    private static final int TRANSACTION_HEADER_SIZE = 8;
+    /**
+     * the operation code of a put
+     */
+    private static final byte PUT = 1;
+    /**
+     * the operation code of a delete
+     */
+    private static final byte DELETE = 2;
+    /**
+     * the least no of operations in the file which trigger a rewrite
+     */
+    private static final int MIN_COMPACTION = 1024;
+    /**
+     * the highest sequence no in the file
+     */
+    private long sequence = 0;
+    /**
+     * the no of operations in the file
+     */
+    private long operations = 0;
+    /**
+     * the length of the file after the last load or save by this storage
+     */
+    private long knownLength = 0;
+
+    /**
+     * creates a key-value storage
+     *
+     * @param configFile the recent files config file
+     */
+    KeyValueStorage(File configFile) {
+        super(configFile);
+    }
+
+    @Override
+    synchronized void loadList(RecentFilesList recentFilesList, int maxRecords) throws IOException {
+        byte[] content = Files.readAllBytes(configFile.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (content.length < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            // the config file is a text config file, so convert it. a new
+            // empty config file is left as it is
+            loadText(recentFilesList, maxRecords);
+            sequence = 0;
+            operations = 0;
+            knownLength = 0;
+            if (content.length > 0) {
+                writeSnapshot(recentFilesList.toArray());
+            }
+            return;
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported recent files config version " + buffer.getInt(4));
+        }
+
+        // replay the transactions into the key-value map
+        HashMap<String, Value> values = new HashMap<>();
+        sequence = 0;
+        operations = 0;
+        long validLength = scan(buffer, HEADER_SIZE, values);
+
+        // cut off a transaction which was torn by a crash, so that the next
+        // transaction is not appended to it
+        if (validLength < content.length) {
+            try (RandomAccessFile file = new RandomAccessFile(configFile, "rw")) {
+                file.setLength(validLength);
+            }
+        }
+        knownLength = validLength;
+
+        // the most recently put recent files first
+        List<Map.Entry<String, Value>> entries = new ArrayList<>(values.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Value>>() {
+            @Override
+            public int compare(Map.Entry<String, Value> e1, Map.Entry<String, Value> e2) {
+                return Long.compare(e2.getValue().sequence, e1.getValue().sequence);
+            }
+        });
+        for (Map.Entry<String, Value> entry : entries) {
+            if (recentFilesList.size() >= maxRecords) {
+                break;
+            }
+            Value value = entry.getValue();
+            recentFilesList.addLast(new RecentFile(new File(value.path), value.attributes));
+        }
+    }
+
+    @Override
+    protected synchronized long write(RecentFile[] snapshot, List<RecentFileChange> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        // other processes sharing the config file may have written to it, so
+        // the sequence nos continue after theirs
+        long length = configFile.length();
+        if (length != knownLength) {
+            rescan();
+        }
+        if (knownLength == 0) {
+            // a new or converted config file is written as a whole
+            return writeSnapshot(snapshot);
+        }
+
+        // encode all the changes as one transaction
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        for (RecentFileChange change : changes) {
+            switch (change.getType()) {
+                case ADDED:
+                case PROMOTED:
+                    // the next sequence no puts the recent file at the front
+                    writePut(data, change.getRecentFile(), ++sequence);
+                    break;
+                case REMOVED:
+                case EVICTED:
+                    data.writeByte(DELETE);
+                    writeString(data, PathKeys.key(change.getRecentFile().getFile()));
+                    break;
+                case INSERTED:
+                case UPDATED:
+                    // a recent file which is put in between, or changed in
+                    // place, keeps its position only in the order of the
+                    // sequence nos, so the whole list is rewritten
+                    return writeSnapshot(snapshot);
+            }
+            operations++;
+        }
+        byte[] transaction = transaction(bytes.toByteArray());
+        try (FileChannel channel = FileChannel.open(configFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(transaction));
+            channel.force(false);
+            knownLength = channel.size();
+        }
+
+        // rewrite the file once it holds many more operations than entries
+        if (operations >= MIN_COMPACTION && operations > 2L * snapshot.length) {
+            return transaction.length + writeSnapshot(snapshot);
+        }
+        return transaction.length;
+    }
+
+    @Override
+    synchronized long writeSnapshot(RecentFile[] snapshot) throws IOException {
+        // one put per recent file, the least recent with the lowest sequence
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        for (int i = 0; i < snapshot.length; i++) {
+            writePut(data, snapshot[i], snapshot.length - i);
+        }
+        final byte[] transaction = transaction(bytes.toByteArray());
+        long written = writeAtomically(configFile, new ContentWriter() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                DataOutputStream header = new DataOutputStream(out);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.write(transaction);
+                header.flush();
+            }
+        });
+        sequence = snapshot.length;
+        operations = snapshot.length;
+        knownLength = written;
+        return written;
+    }
+
+    /**
+     * reads the sequence no and the no of operations of the file again, after
+     * another process wrote to it. the sequence no never goes back, even if
+     * the file was rewritten
+     *
+     * @throws IOException if the file could not be read
+     */
+    private void rescan() throws IOException {
+        byte[] content = Files.readAllBytes(configFile.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (content.length < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            knownLength = 0;
+            return;
+        }
+        operations = 0;
+        knownLength = scan(buffer, HEADER_SIZE, null);
+    }
+
+    /**
+     * scans the valid transactions of the file, updating the sequence no and
+     * the no of operations
+     *
+     * @param buffer the file content
+     * @param offset the offset of the first transaction
+     * @param values the key-value map to apply the operations to, or null
+     * @return the offset after the last valid transaction
+     * @throws IOException if the file holds an unknown operation
+     */
+    private long scan(ByteBuffer buffer, int offset, HashMap<String, Value> values) throws IOException {
+        CRC32 crc = new CRC32();
+        while (offset + TRANSACTION_HEADER_SIZE <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            int checksum = buffer.getInt(offset + 4);
+            int start = offset + TRANSACTION_HEADER_SIZE;
+            if (length < 0 || length > buffer.limit() - start) {
+                // torn
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), start, length);
+            if ((int) crc.getValue() != checksum) {
+                // torn
+                break;
+            }
+
+            // apply the operations of the transaction
+            ByteBuffer operation = ByteBuffer.wrap(buffer.array(), start, length);
+            try {
+                while (operation.hasRemaining()) {
+                    byte code = operation.get();
+                    if (code == PUT) {
+                        long putSequence = operation.getLong();
+                        String key = readString(operation);
+                        String path = readString(operation);
+                        int attributeCount = operation.getInt();
+                        String[] attributes = attributeCount < 0 ? null : new String[attributeCount];
+                        for (int i = 0; i < attributeCount; i++) {
+                            attributes[i] = readString(operation);
+                        }
+                        if (values != null) {
+                            values.put(key, new Value(putSequence, path, attributes));
+                        }
+                        sequence = Math.max(sequence, putSequence);
+                    } else if (code == DELETE) {
+                        String key = readString(operation);
+                        if (values != null) {
+                            values.remove(key);
+                        }
+                    } else {
+                        throw new IOException("Corrupt recent files config file " + configFile);
+                    }
+                    operations++;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException ex) {
+                throw new IOException("Corrupt recent files config file " + configFile, ex);
+            }
+            offset = start + length;
+        }
+        return offset;
+    }
+
+    /**
+     * frames the operations as a transaction with their length and checksum
+     *
+     * @param operations the encoded operations
+     * @return the transaction
+     */
+    private static byte[] transaction(byte[] operations) {
+        CRC32 crc = new CRC32();
+        crc.update(operations);
+        ByteBuffer transaction = ByteBuffer.allocate(TRANSACTION_HEADER_SIZE + operations.length);
+        transaction.putInt(operations.length);
+        transaction.putInt((int) crc.getValue());
+        transaction.put(operations);
+        return transaction.array();
+    }
+
+    /**
+     * encodes a put of a recent file
+     *
+     * @param data the output
+     * @param recentFile the recent file
+     * @param putSequence the sequence no of the put
+     * @throws IOException never, the output is in memory
+     */
+    private static void writePut(DataOutputStream data, RecentFile recentFile, long putSequence) throws IOException {
+        data.writeByte(PUT);
+        data.writeLong(putSequence);
+        writeString(data, PathKeys.key(recentFile.getFile()));
+        writeString(data, recentFile.getFile().getAbsolutePath());
+        String[] attributes = recentFile.attributes();
+        data.writeInt(attributes == null ? -1 : attributes.length);
+        if (attributes != null) {
+            for (String attribute : attributes) {
+                writeString(data, attribute);
+            }
+        }
+    }
+
+    /**
+     * encodes a string as its length and UTF-8 bytes. a null string has the
+     * length -1
+     *
+     * @param data the output
+     * @param string the string, may be null
+     * @throws IOException never, the output is in memory
+     */
+    private static void writeString(DataOutputStream data, String string) throws IOException {
+        if (string == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(RecentFilesCodec.UTF8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    /**
+     * decodes a string written by writeString
+     *
+     * @param buffer the input
+     * @return the string, or null
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, RecentFilesCodec.UTF8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    /**
+     * the value of a recent file in the key-value store
+     */
+    private static class Value {
+
+        /**
+         * the sequence no of the last put
+         */
+        private final long sequence;
+        /**
+         * the path
+         */
+        private final String path;
+        /**
+         * the attributes
+         */
+        private final String[] attributes;
+
+        /**
+         * creates a value
+         *
+         * @param sequence the sequence no of the put
+         * @param path the path
+         * @param attributes the attributes
+         */
+        Value(long sequence, String path, String[] attributes) {
+            this.sequence = sequence;
+            this.path = path;
+            this.attributes = attributes;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * the MemoryStorage keeps the last saved recent files list in memory only,
+ * for tests and for applications which dont remember their recent files
+ *
+ * @author deepak
+ */
+class MemoryStorage extends RecentFilesStorage {
+
+    /**
+     * the last saved recent files, the most recent first
+     */
+    private List<RecentFile> saved = Collections.emptyList();
+
+    @Override
+    protected synchronized List<RecentFile> load(int maxRecords) {
+        return saved.subList(0, Math.min(maxRecords, saved.size()));
+    }
+
+    @Override
+    protected synchronized long write(RecentFile[] snapshot, List<RecentFileChange> changes) {
+        // the snapshot is a copy owned by the storage
+        saved = Collections.unmodifiableList(Arrays.asList(snapshot));
+        return 0;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.util.Locale;
+
+/**
+ * the PathKeys class computes the path keys which identify the recent files.
+ * a path key is the absolute path of a file with the "." and ".." names
+ * removed. on a case insensitive file system it is also lower cased, so the
+ * spellings of a path which name the same file give the same key. a canonical
+ * path key also resolves the symbolic links of an existing file
+ *
+ * @author deepak
+ */
+final class PathKeys {
+
+    /**
+     * true if the file system of the temp folder ignores the case of names,
+     * which is taken for all the files
+     */
+    private static final boolean CASE_INSENSITIVE = probeCaseInsensitive();
+
+    /**
+     * no instances
+     */
+    private PathKeys() {
+    }
+
+    /**
+     * computes the path key of a file
+     *
+     * @param file the file
+     * @return the normalized absolute path of the file
+     */
+    static String key(File file) {
+        String path;
+        try {
+            path = file.toPath().toAbsolutePath().normalize().toString();
+        } catch (InvalidPathException ex) {
+            // the file system cannot parse the path, so keep it as it is
+            path = file.getAbsolutePath();
+        }
+        return fold(path);
+    }
+
+    /**
+     * computes the canonical path key of a file, which resolves the symbolic
+     * links of an existing file. this accesses the file system
+     *
+     * @param file the file
+     * @return the real path of an existing file, else the path key
+     */
+    static String canonicalKey(File file) {
+        try {
+            return fold(file.toPath().toRealPath().toString());
+        } catch (IOException | InvalidPathException | SecurityException ex) {
+            // the file doesnt exist or cannot be resolved
+            return key(file);
+        }
+    }
+
+    /**
+     * lower cases a path on a case insensitive file system
+     *
+     * @param path the path
+     * @return the path to be used as a key
+     */
+    private static String fold(String path) {
+        return CASE_INSENSITIVE ? path.toLowerCase(Locale.ROOT) : path;
+    }
+
+    /**
+     * checks whether the file system of the temp folder ignores the case of
+     * names, by looking up a new temp file with an upper cased name
+     *
+     * @return true if the file system ignores the case of names
+     */
+    private static boolean probeCaseInsensitive() {
+        try {
+            File probe = File.createTempFile("recentfilesapi", ".probe");
+            try {
+                return new File(probe.getParentFile(), probe.getName().toUpperCase(Locale.ROOT)).exists();
+            } finally {
+                probe.delete();
+            }
+        } catch (IOException | SecurityException ex) {
+            return false;
+        }
+    }
+}
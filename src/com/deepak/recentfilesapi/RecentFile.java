@@ -0,0 +1,211 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+
+/**
+ * the RecentFile class holds a recent file object and its associated attribute
+ * array. the identity of a recent file is its path key, which is computed once
+ * when the object is created, see PathKeys. RecentFile objects are immutable. the attributes
+ * are interned, so recent files with equal attributes share one array
+ *
+ * @author deepak
+ */
+public final class RecentFile {
+
+    /**
+     * the recent file reference
+     */
+    private final File file;
+    /**
+     * the path key identifying the recent file
+     */
+    private final String key;
+    /**
+     * the attribute array reference
+     */
+    private final String[] attributes;
+    /**
+     * true if the file was found missing by the last validation
+     */
+    private final boolean missing;
+
+    /**
+     * creates a recent file object with the specified parameter. a
+     * RecentFilesStorage creates the recent files it loads with it
+     *
+     * @param file the recent file object
+     * @param attributes the attribute array
+     */
+    public RecentFile(File file, String[] attributes) {
+        this(file, PathKeys.key(file), RecentFileAttributes.intern(attributes), false);
+    }
+
+    /**
+     * creates a recent file object with a precomputed path key
+     *
+     * @param file the recent file object
+     * @param key the path key of the recent file
+     * @param attributes the attribute array
+     * @param missing true if the file was found missing
+     */
+    private RecentFile(File file, String key, String[] attributes, boolean missing) {
+        // set the file reference
+        this.file = file;
+        // set the path key, computed only once
+        this.key = key;
+        // set the attributes reference
+        this.attributes = attributes;
+        this.missing = missing;
+    }
+
+    /**
+     * getter for the recent file
+     *
+     * @return the recent file reference
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * getter for the file attributes
+     *
+     * @return a copy of the attributes String array, or null if the file has
+     * no attributes
+     */
+    public String[] getAttributes() {
+        return attributes == null ? null : attributes.clone();
+    }
+
+    /**
+     * getter for a named file attribute
+     *
+     * @param name the attribute name
+     * @return the value of the attribute, or null if the file has no
+     * attribute with the name
+     *
+     * @see RecentFileAttributes
+     */
+    public String getAttribute(String name) {
+        return RecentFileAttributes.get(attributes, name);
+    }
+
+    /**
+     * tells if the file was found missing when the recent files were last
+     * validated. missing recent files are shown disabled in the JMenu
+     *
+     * @return true if the file was found missing
+     *
+     * @see RecentFilesStore#validate(boolean, long)
+     */
+    public boolean isMissing() {
+        return missing;
+    }
+
+    /**
+     * copies the recent file with another missing flag
+     *
+     * @param missing true if the file was found missing
+     * @return the copy of the recent file
+     */
+    RecentFile withMissing(boolean missing) {
+        return missing == this.missing ? this : new RecentFile(file, key, attributes, missing);
+    }
+
+    /**
+     * copies the recent file with another path key
+     *
+     * @param key the path key
+     * @return the copy of the recent file
+     */
+    RecentFile withKey(String key) {
+        return key.equals(this.key) ? this : new RecentFile(file, key, attributes, missing);
+    }
+
+    /**
+     * getter for the path key
+     *
+     * @return the path key of the recent file
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * getter for the size of the recent file, which is the no of characters
+     * of its path and attributes plus one per attribute, roughly the bytes of
+     * its record in the config file
+     *
+     * @return the size of the recent file
+     */
+    int byteSize() {
+        int size = file.getPath().length();
+        if (attributes != null) {
+            for (String attribute : attributes) {
+                size += attribute == null ? 1 : attribute.length() + 1;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * getter for the file attributes without copying them
+     *
+     * @return the attributes String array, which must not be changed
+     */
+    String[] attributes() {
+        return attributes;
+    }
+
+    /**
+     * the overridden equals method of the object class
+     *
+     * @param obj the object to be compared with
+     * @return true if the files of the two object are the same, else returns
+     * false. here we are only concerned with the file equality as for the same
+     * file there will be different attributes. the files are compared by their
+     * path keys, so different spellings of the same path are equal
+     */
+    @Override
+    public boolean equals(Object obj) {
+        // compare the precomputed path keys only
+        return obj instanceof RecentFile && key.equals(((RecentFile) obj).key);
+    }
+
+    /**
+     * overridden hashCode method of the object class. generates hash code
+     * based on the path key only
+     *
+     * @return the hash code for the current object
+     */
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    /**
+     * overridden toString method of the object class
+     *
+     * @return the absolute file path
+     */
+    @Override
+    public String toString() {
+        return file.getAbsolutePath();
+    }
+}
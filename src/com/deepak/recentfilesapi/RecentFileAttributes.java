@@ -0,0 +1,176 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the RecentFileAttributes class gives the attributes of a recent file a
+ * named and typed form. a named attribute is stored as a "name=value" string
+ * of the attributes array, so named attributes work with every storage format
+ * and with the String array of the RecentFileHandler. for example a handler
+ * can read the saved cursor position with
+ * <pre>
+ * int line = RecentFileAttributes.getInt(attributes, "line", 1);
+ * </pre>
+ * the attribute values of all the recent files are interned, and recent files
+ * with equal attributes share one attributes array
+ *
+ * @author deepak
+ */
+public final class RecentFileAttributes {
+
+    /**
+     * the maximum no of cached attribute arrays
+     */
+    private static final int MAX_CACHE_SIZE = 1024;
+    /**
+     * the shared attribute arrays by their content, least recently used first
+     */
+    private static final LinkedHashMap<List<String>, String[]> CACHE = new LinkedHashMap<List<String>, String[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, String[]> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * no instances
+     */
+    private RecentFileAttributes() {
+    }
+
+    /**
+     * creates an attributes array of named attributes
+     *
+     * @param values the attribute values by name, in the order of the array.
+     * the values are converted with String.valueOf
+     * @return the attributes array of "name=value" strings
+     * @throws IllegalArgumentException if a name contains '='
+     */
+    public static String[] of(Map<String, ?> values) {
+        String[] attributes = new String[values.size()];
+        int i = 0;
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (entry.getKey().indexOf('=') >= 0) {
+                throw new IllegalArgumentException("Attribute name contains '=': " + entry.getKey());
+            }
+            attributes[i++] = entry.getKey() + '=' + String.valueOf(entry.getValue());
+        }
+        return attributes;
+    }
+
+    /**
+     * gets a named attribute
+     *
+     * @param attributes the attributes array. may be null
+     * @param name the attribute name
+     * @return the value of the first attribute with the name, or null if
+     * there is none
+     */
+    public static String get(String[] attributes, String name) {
+        if (attributes != null) {
+            for (String attribute : attributes) {
+                if (attribute != null && attribute.length() > name.length()
+                        && attribute.charAt(name.length()) == '=' && attribute.startsWith(name)) {
+                    return attribute.substring(name.length() + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * gets a named int attribute
+     *
+     * @param attributes the attributes array. may be null
+     * @param name the attribute name
+     * @param defaultValue the value returned if there is no valid attribute
+     * @return the attribute value or the default value
+     */
+    public static int getInt(String[] attributes, String name, int defaultValue) {
+        String value = get(attributes, name);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * gets a named long attribute
+     *
+     * @param attributes the attributes array. may be null
+     * @param name the attribute name
+     * @param defaultValue the value returned if there is no valid attribute
+     * @return the attribute value or the default value
+     */
+    public static long getLong(String[] attributes, String name, long defaultValue) {
+        String value = get(attributes, name);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * gets a named boolean attribute
+     *
+     * @param attributes the attributes array. may be null
+     * @param name the attribute name
+     * @param defaultValue the value returned if there is no attribute
+     * @return the attribute value or the default value
+     */
+    public static boolean getBoolean(String[] attributes, String name, boolean defaultValue) {
+        String value = get(attributes, name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * gets the shared copy of an attributes array with interned values. the
+     * returned array must not be changed
+     *
+     * @param attributes the attributes array. may be null
+     * @return the shared attributes array, or null
+     */
+    static String[] intern(String[] attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        List<String> key = Arrays.asList(attributes);
+        synchronized (CACHE) {
+            String[] shared = CACHE.get(key);
+            if (shared != null) {
+                return shared;
+            }
+        }
+
+        // copy the array, so later changes by the caller are not seen
+        String[] shared = new String[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            shared[i] = attributes[i] == null ? null : attributes[i].intern();
+        }
+        synchronized (CACHE) {
+            CACHE.put(Arrays.asList(shared), shared);
+        }
+        return shared;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+/**
+ * the RecentFileChange class describes a single change made to the recent
+ * files list. a RecentFilesStorage gets the changes made since the last save,
+ * so it can save them by point updates instead of rewriting the whole list,
+ * and a RecentFilesListener gets the changes made since its last event
+ *
+ * @author deepak
+ */
+public final class RecentFileChange {
+
+    /**
+     * the kinds of change
+     */
+    public enum Type {
+
+        /**
+         * a new recent file is added at the front of the list
+         */
+        ADDED,
+        /**
+         * an existing recent file is moved to the front of the list
+         */
+        PROMOTED,
+        /**
+         * the least recent file is dropped as the list exceeds its limit
+         */
+        EVICTED,
+        /**
+         * a recent file is removed from the list
+         */
+        REMOVED,
+        /**
+         * a new or existing recent file is put in front of another one, or at
+         * the end of the list, as in frecency ranking mode. the recent file
+         * it is put in front of is given by getNext()
+         */
+        INSERTED,
+        /**
+         * the attributes or the missing flag of a recent file are changed
+         * without moving it. only a RecentFilesListener gets this change
+         */
+        UPDATED
+    }
+    /**
+     * the change type
+     */
+    private final Type type;
+    /**
+     * the recent file which is changed
+     */
+    private final RecentFile recentFile;
+    /**
+     * the recent file in front of which an inserted recent file is put, or
+     * null
+     */
+    private final RecentFile next;
+
+    /**
+     * creates a recent file change
+     *
+     * @param type the change type
+     * @param recentFile the recent file which is changed
+     */
+    RecentFileChange(Type type, RecentFile recentFile) {
+        this(type, recentFile, null);
+    }
+
+    /**
+     * creates a recent file change with a position
+     *
+     * @param type the change type
+     * @param recentFile the recent file which is changed
+     * @param next the recent file in front of which the recent file is put,
+     * or null for the end of the list
+     */
+    RecentFileChange(Type type, RecentFile recentFile, RecentFile next) {
+        this.type = type;
+        this.recentFile = recentFile;
+        this.next = next;
+    }
+
+    /**
+     * getter for the change type
+     *
+     * @return the change type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * getter for the recent file
+     *
+     * @return the recent file which is changed
+     */
+    public RecentFile getRecentFile() {
+        return recentFile;
+    }
+
+    /**
+     * getter for the position of an inserted recent file
+     *
+     * @return the recent file in front of which the recent file is put, or
+     * null if it is put at the end of the list or the change is no insert
+     */
+    public RecentFile getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * the RecentFilesCodec encodes and decodes the text records of the recent
+ * files storages. a record is a line of tab separated fields in UTF-8, where
+ * backslash, tab and line break characters inside a field are escaped
+ *
+ * @author deepak
+ */
+final class RecentFilesCodec {
+
+    /**
+     * the record charset
+     */
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * no instances
+     */
+    private RecentFilesCodec() {
+    }
+
+    /**
+     * appends an escaped field to the record
+     *
+     * @param record the record being built
+     * @param field the field value. null is written as an empty field
+     */
+    static void appendField(StringBuilder record, String field) {
+        if (field == null) {
+            return;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    record.append("\\\\");
+                    break;
+                case '\t':
+                    record.append("\\t");
+                    break;
+                case '\n':
+                    record.append("\\n");
+                    break;
+                case '\r':
+                    record.append("\\r");
+                    break;
+                default:
+                    record.append(c);
+            }
+        }
+    }
+
+    /**
+     * appends the path and the attributes of the recent file as fields to the
+     * record
+     *
+     * @param record the record being built
+     * @param recentFile the recent file
+     */
+    static void appendRecentFile(StringBuilder record, RecentFile recentFile) {
+        appendField(record, recentFile.getFile().getAbsolutePath());
+        if (recentFile.attributes() != null) {
+            for (String attribute : recentFile.attributes()) {
+                record.append('\t');
+                appendField(record, attribute);
+            }
+        }
+    }
+
+    /**
+     * decodes the recent file from the record fields
+     *
+     * @param fields the record fields
+     * @param from the index of the path field. the attribute fields follow it
+     * @return the recent file
+     */
+    static RecentFile toRecentFile(List<String> fields, int from) {
+        String[] attributes = fields.size() > from + 1
+                ? fields.subList(from + 1, fields.size()).toArray(new String[0])
+                : null;
+        return new RecentFile(new File(fields.get(from)), attributes);
+    }
+
+    /**
+     * the RecordReader reads the records of a stream in a single pass
+     */
+    static class RecordReader {
+
+        /**
+         * the record stream
+         */
+        private final InputStream in;
+        /**
+         * the read buffer
+         */
+        private final byte[] buffer = new byte[8192];
+        /**
+         * the no of bytes in the read buffer
+         */
+        private int limit = 0;
+        /**
+         * the read position in the read buffer
+         */
+        private int position = 0;
+        /**
+         * the bytes of the record being read
+         */
+        private byte[] line = new byte[256];
+        /**
+         * the no of bytes of complete records read so far
+         */
+        private long completeLength = 0;
+        /**
+         * true if the stream ended inside a record
+         */
+        private boolean torn = false;
+
+        /**
+         * creates a record reader
+         *
+         * @param in the record stream
+         */
+        RecordReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * reads the next record
+         *
+         * @return the record fields or null if there are no more complete
+         * records
+         * @throws IOException if the stream could not be read
+         */
+        List<String> next() throws IOException {
+            int length = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        // a record without its line break was cut off while writing
+                        torn = length > 0;
+                        return null;
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    completeLength += length + 1;
+                    return split(new String(line, 0, length, UTF8));
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+
+        /**
+         * getter for the length of the complete records read so far
+         *
+         * @return the no of bytes of the complete records
+         */
+        long getCompleteLength() {
+            return completeLength;
+        }
+
+        /**
+         * checks whether the stream ended inside a record
+         *
+         * @return true if the last record was cut off
+         */
+        boolean isTorn() {
+            return torn;
+        }
+
+        /**
+         * splits the record at the unescaped tabs and unescapes the fields
+         *
+         * @param record the record line
+         * @return the record fields
+         */
+        private static List<String> split(String record) {
+            ArrayList<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            for (int i = 0; i < record.length(); i++) {
+                char c = record.charAt(i);
+                if (c == '\t') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\\' && i + 1 < record.length()) {
+                    char escaped = record.charAt(++i);
+                    field.append(escaped == 't' ? '\t'
+                            : escaped == 'n' ? '\n'
+                            : escaped == 'r' ? '\r'
+                            : escaped);
+                } else if (c != '\r') {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
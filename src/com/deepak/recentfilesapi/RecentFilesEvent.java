@@ -0,0 +1,87 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.EventObject;
+import java.util.List;
+
+/**
+ * the RecentFilesEvent tells a RecentFilesListener how the recent files list
+ * changed since its previous event. the changes are the net ones: a file is
+ * reported once, as added, promoted, updated, evicted or removed, however
+ * often it changed meanwhile
+ *
+ * @author deepak
+ */
+public final class RecentFilesEvent extends EventObject {
+
+    /**
+     * the serialization version of the event
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the changes, the files in the list first from the most recent one, then
+     * the files no longer in the list
+     */
+    private final transient List<RecentFileChange> changes;
+    /**
+     * the snapshot of the recent files after the changes
+     */
+    private final transient RecentFilesSnapshot snapshot;
+
+    /**
+     * Creates a new RecentFilesEvent object
+     *
+     * @param store the changed store
+     * @param changes the changes
+     * @param snapshot the snapshot of the recent files after the changes
+     */
+    RecentFilesEvent(RecentFilesStore store, List<RecentFileChange> changes, RecentFilesSnapshot snapshot) {
+        super(store);
+        this.changes = changes;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * getter for the changed store
+     *
+     * @return the store
+     */
+    public RecentFilesStore getStore() {
+        return (RecentFilesStore) getSource();
+    }
+
+    /**
+     * getter for the changes
+     *
+     * @return the unmodifiable list of the changes, the files in the list
+     * first from the most recent one, then the files no longer in the list
+     */
+    public List<RecentFileChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * getter for the snapshot of the recent files after the changes
+     *
+     * @return the snapshot
+     */
+    public RecentFilesSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
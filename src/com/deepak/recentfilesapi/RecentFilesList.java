@@ -0,0 +1,422 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * the RecentFilesList is a least recently used list of recent files. the most
+ * recent file is at the front of the list. a hash index on the path key of the
+ * recent files gives constant time lookup, promotion and eviction
+ *
+ * @author deepak
+ */
+class RecentFilesList implements Iterable<RecentFile> {
+
+    /**
+     * the path key to list node index
+     */
+    private final HashMap<String, Node> index = new HashMap<>();
+    /**
+     * the first (most recent) node of the list
+     */
+    private Node head = null;
+    /**
+     * the last (least recent) node of the list
+     */
+    private Node tail = null;
+    /**
+     * the total size of the recent files, see RecentFile.byteSize()
+     */
+    private long bytes = 0;
+    /**
+     * the search index kept up to date with the list, or null
+     */
+    private TrigramIndex searchIndex = null;
+
+    /**
+     * sets the search index to be kept up to date with the list, and indexes
+     * the recent files of the list
+     *
+     * @param searchIndex the search index, or null to stop updating it
+     */
+    void setSearchIndex(TrigramIndex searchIndex) {
+        this.searchIndex = searchIndex;
+        if (searchIndex != null) {
+            searchIndex.clear();
+            for (Node node = tail; node != null; node = node.prev) {
+                searchIndex.add(node.recentFile, true);
+            }
+        }
+    }
+
+    /**
+     * getter for the recent file with the specified path key
+     *
+     * @param key the path key
+     * @return the recent file or null if the list doesnt contain the key
+     */
+    RecentFile get(String key) {
+        Node node = index.get(key);
+        return node == null ? null : node.recentFile;
+    }
+
+    /**
+     * checks whether the list contains a recent file with the path key
+     *
+     * @param key the path key
+     * @return true if the list contains the key
+     */
+    boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * puts the recent file at the front of the list. a recent file with the
+     * same path key is replaced
+     *
+     * @param recentFile the recent file to put
+     * @return the replaced recent file or null if there was none
+     */
+    RecentFile addFirst(RecentFile recentFile) {
+        Node node = index.get(recentFile.getKey());
+        RecentFile previous = null;
+        if (node != null) {
+            // reuse the node of the previous entry
+            previous = node.recentFile;
+            unlink(node);
+            set(node, recentFile);
+        } else {
+            node = newNode(recentFile);
+        }
+        linkFirst(node);
+        if (searchIndex != null) {
+            searchIndex.add(recentFile, true);
+        }
+        return previous;
+    }
+
+    /**
+     * puts a recent file in front of another one. if the list already
+     * contains the file then it is moved and its entry replaced
+     *
+     * @param recentFile the recent file
+     * @param key the path key of the recent file to be put in front of. must
+     * be in the list and differ from the key of the recent file
+     * @return the replaced entry or null if the list didnt contain the file
+     */
+    RecentFile addBefore(RecentFile recentFile, String key) {
+        Node before = index.get(key);
+        Node node = index.get(recentFile.getKey());
+        RecentFile previous = null;
+        if (node != null) {
+            previous = node.recentFile;
+            unlink(node);
+            set(node, recentFile);
+        } else {
+            node = newNode(recentFile);
+        }
+        if (before.prev == null) {
+            linkFirst(node);
+        } else {
+            node.prev = before.prev;
+            node.next = before;
+            before.prev.next = node;
+            before.prev = node;
+        }
+        if (searchIndex != null) {
+            searchIndex.add(recentFile, true);
+        }
+        return previous;
+    }
+
+    /**
+     * getter for the last (least recent) recent file
+     *
+     * @return the last recent file or null if the list is empty
+     */
+    RecentFile getLast() {
+        return tail == null ? null : tail.recentFile;
+    }
+
+    /**
+     * replaces the entry of a recent file without moving it
+     *
+     * @param recentFile the new entry of the recent file
+     * @return the replaced entry, or null if the list doesnt contain the file,
+     * which is then not added
+     */
+    RecentFile replace(RecentFile recentFile) {
+        Node node = index.get(recentFile.getKey());
+        if (node == null) {
+            return null;
+        }
+        RecentFile previous = node.recentFile;
+        set(node, recentFile);
+        if (searchIndex != null) {
+            searchIndex.replace(recentFile);
+        }
+        return previous;
+    }
+
+    /**
+     * puts the recent file at the end of the list, if the list doesnt contain
+     * its path key yet. used when loading the list in its saved order
+     *
+     * @param recentFile the recent file to put
+     * @return true if the recent file was added
+     */
+    boolean addLast(RecentFile recentFile) {
+        if (index.containsKey(recentFile.getKey())) {
+            return false;
+        }
+        Node node = newNode(recentFile);
+        linkLast(node);
+        if (searchIndex != null) {
+            searchIndex.add(recentFile, false);
+        }
+        return true;
+    }
+
+    /**
+     * removes the recent file with the specified path key
+     *
+     * @param key the path key
+     * @return the removed recent file or null if the list doesnt contain the
+     * key
+     */
+    RecentFile remove(String key) {
+        Node node = index.remove(key);
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        bytes -= node.bytes;
+        if (searchIndex != null) {
+            searchIndex.remove(key);
+        }
+        return node.recentFile;
+    }
+
+    /**
+     * removes the least recent file of the list
+     *
+     * @return the removed recent file or null if the list is empty
+     */
+    RecentFile removeLast() {
+        return tail == null ? null : remove(tail.recentFile.getKey());
+    }
+
+    /**
+     * removes all recent files
+     */
+    void clear() {
+        index.clear();
+        head = null;
+        tail = null;
+        bytes = 0;
+        if (searchIndex != null) {
+            searchIndex.clear();
+        }
+    }
+
+    /**
+     * getter for the list size
+     *
+     * @return the no of recent files in the list
+     */
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * getter for the total size of the recent files, kept up to date with
+     * every change
+     *
+     * @return the sum of the sizes of the recent files
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * copies the recent files into an array, from the most recent to the least
+     * recent one
+     *
+     * @return the recent files array
+     */
+    RecentFile[] toArray() {
+        RecentFile[] array = new RecentFile[index.size()];
+        int i = 0;
+        for (Node node = head; node != null; node = node.next) {
+            array[i++] = node.recentFile;
+        }
+        return array;
+    }
+
+
+    /**
+     * iterates the recent files from the most recent to the least recent one
+     *
+     * @return the recent files iterator
+     */
+    @Override
+    public Iterator<RecentFile> iterator() {
+        return new Iterator<RecentFile>() {
+            private Node next = head;
+            private Node last = null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public RecentFile next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = next.next;
+                return last.recentFile;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                RecentFilesList.this.remove(last.recentFile.getKey());
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * links the node at the front of the list
+     *
+     * @param node the unlinked node
+     */
+    private void linkFirst(Node node) {
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        } else {
+            tail = node;
+        }
+        head = node;
+    }
+
+    /**
+     * creates the node of a recent file and indexes it
+     *
+     * @param recentFile the recent file
+     * @return the unlinked node
+     */
+    private Node newNode(RecentFile recentFile) {
+        Node node = new Node(recentFile);
+        index.put(recentFile.getKey(), node);
+        bytes += node.bytes;
+        return node;
+    }
+
+    /**
+     * changes the recent file of a node, accounting for the change of its
+     * size
+     *
+     * @param node the node
+     * @param recentFile the new recent file of the node
+     */
+    private void set(Node node, RecentFile recentFile) {
+        bytes -= node.bytes;
+        node.recentFile = recentFile;
+        node.bytes = recentFile.byteSize();
+        bytes += node.bytes;
+    }
+
+    /**
+     * links the node at the end of the list
+     *
+     * @param node the unlinked node
+     */
+    private void linkLast(Node node) {
+        node.next = null;
+        node.prev = tail;
+        if (tail != null) {
+            tail.next = node;
+        } else {
+            head = node;
+        }
+        tail = node;
+    }
+
+    /**
+     * unlinks the node from the list
+     *
+     * @param node the linked node
+     */
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    /**
+     * the list node holding a recent file
+     */
+    private static class Node {
+
+        /**
+         * the recent file of the node
+         */
+        private RecentFile recentFile;
+        /**
+         * the size of the recent file
+         */
+        private int bytes;
+        /**
+         * the previous (more recent) node
+         */
+        private Node prev;
+        /**
+         * the next (less recent) node
+         */
+        private Node next;
+
+        /**
+         * creates a list node
+         *
+         * @param recentFile the recent file of the node
+         */
+        Node(RecentFile recentFile) {
+            this.recentFile = recentFile;
+            this.bytes = recentFile.byteSize();
+        }
+    }
+}
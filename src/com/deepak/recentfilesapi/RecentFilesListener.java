@@ -0,0 +1,42 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.EventListener;
+
+/**
+ * This interface is to be implemented by any class which shows or follows the
+ * recent files of a RecentFilesStore, for example a start page or a status
+ * bar, instead of polling the store
+ *
+ * @author deepak
+ *
+ * @see RecentFilesStore#addRecentFilesListener(RecentFilesListener)
+ */
+public interface RecentFilesListener extends EventListener {
+
+    /**
+     * this function is called on the event dispatch thread after the recent
+     * files list changed. the changes made until the event is delivered are
+     * coalesced into one event, so a burst of adds causes one call and a file
+     * added and evicted meanwhile is not reported at all
+     *
+     * @param event the changes and the snapshot of the recent files after
+     * them
+     */
+    public void recentFilesChanged(RecentFilesEvent event);
+}
@@ -26,56 +26,57 @@ package com.deepak.recentfilesapi;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Objects;
-import java.util.Properties;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.JComponent;
 import javax.swing.JMenu;
-import javax.swing.JMenuItem;
 
 /**
  * RecentFilesManager provides methods to enable support for recent files in
- * your gui based programs.
+ * your gui based programs. it shows the recent files of a RecentFilesStore as
+ * JMenuItems of a JMenu
  *
  * @author deepak
  */
-public class RecentFilesManager {
+public class RecentFilesManager implements Closeable {
 
     /**
      * the recent file handler reference object
      */
     private RecentFileHandler recentFileHandler = null;
     /**
-     * the menu component onto which the recent files JMenuItems are to be added
+     * the recent files menu showing the recent files JMenuItems
      */
-    private JMenu jmenu = null;
+    private RecentFilesMenu recentFilesMenu = null;
     /**
-     * the recent file config file object
+     * the store keeping the recent files list, null until it is loaded
      */
-    private File configFile = null;
+    private volatile RecentFilesStore store = null;
     /**
-     * the maximum no of records to be stored
+     * the load of the store of a manager opened asynchronously, else null
      */
-    private int maxRecords = 0;
+    private FutureTask<RecentFilesManager> loading = null;
     /**
-     * the file icon types array object
+     * the recent files added while the store is loading, guarded by itself
      */
-    private FileIconTypes[] fileIconTypesArray = null;
+    private final LinkedHashMap<File, String[]> queued = new LinkedHashMap<>();
     /**
-     * the recent files list
+     * true once the load of the store has failed, guarded by the queued files
      */
-    private ArrayList<RecentFile> recentFilesList = null;
-    /**
-     * the java.util.Properties object
-     */
-    private Properties properties = null;
+    private boolean loadFailed = false;
 
     /**
      * Creates a new RecentFileManager object
@@ -100,107 +101,365 @@ public class RecentFilesManager {
             String configFileName,
             int maxRecords,
             FileIconTypes[] fileIconTypes) throws FileNotFoundException, IOException {
+        this(recentFileHandler, jMenu, configFileName, maxRecords, fileIconTypes, StorageFormat.CONFIG_FILE);
+    }
 
-        // set the recent file handler object
-        this.recentFileHandler = recentFileHandler;
-
-        // set the jmenu reference
-        this.jmenu = jMenu;
-
-        // create the config file from the config file name
-        this.configFile = new File(configFileName);
-
-        // if file doesnt exists the ncreate one
-        if (!configFile.exists()) {
-            this.configFile.createNewFile();
-        }
-
-        // set the maximun no of records
-        this.maxRecords = maxRecords;
-
-        // set the file icon types reference
-        this.fileIconTypesArray = fileIconTypes;
-
-        // create a new recent files list
-        recentFilesList = new ArrayList<>();
+    /**
+     * Creates a new RecentFileManager object which stores the recent files
+     * list in the specified storage format
+     *
+     * @param recentFileHandler the recent file handler object reference
+     *
+     * @param jMenu the menu component object reference onto which the recent
+     * files JMenuItems are to be added
+     *
+     * @param configFileName the recent files config save file name. the file
+     * will be created in the same folder as that of the project
+     *
+     * @param maxRecords the maximum no of recent files to be stored
+     *
+     * @param fileIconTypes the file icon type array. specifies what icon to be
+     * displayed for different files. the file type is recognized by their
+     * extension.
+     *
+     * @param storageFormat the format in which the recent files list is stored
+     */
+    public RecentFilesManager(
+            RecentFileHandler recentFileHandler,
+            JMenu jMenu,
+            String configFileName,
+            int maxRecords,
+            FileIconTypes[] fileIconTypes,
+            StorageFormat storageFormat) throws FileNotFoundException, IOException {
+        this(recentFileHandler, jMenu, new RecentFilesStore(configFileName, maxRecords, storageFormat), fileIconTypes);
+    }
 
-        // create a properties object
-        this.properties = new Properties();
+    /**
+     * Creates a new RecentFileManager object which loads and saves the recent
+     * files list through a storage
+     *
+     * @param recentFileHandler the recent file handler object reference
+     *
+     * @param jMenu the menu component object reference onto which the recent
+     * files JMenuItems are to be added
+     *
+     * @param storage the storage of the recent files list, for example an in
+     * memory storage for tests
+     *
+     * @param maxRecords the maximum no of recent files to be stored
+     *
+     * @param fileIconTypes the file icon type array. specifies what icon to be
+     * displayed for different files. the file type is recognized by their
+     * extension.
+     *
+     * @see RecentFilesStorage
+     */
+    public RecentFilesManager(
+            RecentFileHandler recentFileHandler,
+            JMenu jMenu,
+            RecentFilesStorage storage,
+            int maxRecords,
+            FileIconTypes[] fileIconTypes) throws IOException {
+        this(recentFileHandler, jMenu, new RecentFilesStore(storage, maxRecords), fileIconTypes);
+    }
 
-        // load the properties from the config file
-        this.properties.load(new FileInputStream(configFile));
+    /**
+     * Creates a new RecentFileManager object showing the recent files of a
+     * store
+     *
+     * @param recentFileHandler the recent file handler object reference
+     *
+     * @param jMenu the menu component object reference onto which the recent
+     * files JMenuItems are to be added
+     *
+     * @param store the store keeping the recent files list
+     *
+     * @param fileIconTypes the file icon type array. specifies what icon to be
+     * displayed for different files. the file type is recognized by their
+     * extension.
+     */
+    public RecentFilesManager(
+            RecentFileHandler recentFileHandler,
+            JMenu jMenu,
+            RecentFilesStore store,
+            FileIconTypes[] fileIconTypes) {
 
-        // the recent file name string
-        String fileName;
+        // set the recent file handler object
+        this.recentFileHandler = recentFileHandler;
 
-        // the recent file attribute string
-        String attribute;
+        // set the store reference
+        this.store = store;
 
-        // the recent file attribute list
-        ArrayList<String> attributeList;
+        // create the recent files menu on the jmenu, with one action listener
+        // for all the recent files JMenuItems
+        createMenu(jMenu, store, fileIconTypes);
 
-        // for the maximun no of recent records
-        for (int i = 0; i < maxRecords; i++) {
+        // load the jmenu with the recent files JMenuItems
+        recentFilesMenu.update();
+    }
 
-            // the value for key 'x0' gives the file name 
-            fileName = properties.getProperty(String.valueOf(i) + 0);
+    /**
+     * Creates a new RecentFileManager object whose store is still to be
+     * loaded
+     *
+     * @param recentFileHandler the recent file handler object reference
+     *
+     * @param jMenu the menu component object reference onto which the recent
+     * files JMenuItems are to be added
+     *
+     * @param fileIconTypes the file icon type array
+     */
+    private RecentFilesManager(RecentFileHandler recentFileHandler, JMenu jMenu, FileIconTypes[] fileIconTypes) {
+        this.recentFileHandler = recentFileHandler;
 
-            // if file name is not equal to null then
-            if (fileName != null) {
+        // show the placeholder until the store is loaded
+        createMenu(jMenu, null, fileIconTypes);
+        recentFilesMenu.update();
+    }
 
-                // create a new recent file object
-                RecentFile recentFile = new RecentFile();
+    /**
+     * opens a RecentFilesManager without waiting for its recent files, for
+     * example on the event dispatch thread while the application starts. the
+     * config file is created and loaded on a background thread, and meanwhile
+     * the JMenu shows a disabled "Loading..." JMenuItem. the manager can be
+     * used right away: the recent files added meanwhile are queued and added
+     * once the store is loaded, a file added twice only once, and the paging
+     * and icon settings take effect at once. the other methods wait for the
+     * load. if the load fails, the queued files are dropped and the later
+     * calls throw the IOException of the load
+     *
+     * @param recentFileHandler the recent file handler object reference
+     *
+     * @param jMenu the menu component object reference onto which the recent
+     * files JMenuItems are to be added
+     *
+     * @param configFileName the recent files config save file name. the file
+     * is created if it doesnt exist
+     *
+     * @param maxRecords the maximum no of recent files to be stored
+     *
+     * @param fileIconTypes the file icon type array. specifies what icon to be
+     * displayed for different files. the file type is recognized by their
+     * extension.
+     *
+     * @param storageFormat the format in which the recent files list is stored
+     *
+     * @return the manager, whose recent files are still loading
+     *
+     * @see #getLoading()
+     */
+    public static RecentFilesManager openAsync(
+            RecentFileHandler recentFileHandler,
+            JMenu jMenu,
+            String configFileName,
+            int maxRecords,
+            FileIconTypes[] fileIconTypes,
+            StorageFormat storageFormat) {
+        return openAsync(recentFileHandler, jMenu, RecentFilesStorage.create(new File(configFileName), storageFormat), maxRecords, fileIconTypes);
+    }
 
-                // create a file object based on the recent file name
-                // and set it to the recent file object
-                recentFile.setFile(new File(fileName));
+    /**
+     * opens a RecentFilesManager which loads and saves the recent files list
+     * through a storage without waiting for its recent files
+     *
+     * @param recentFileHandler the recent file handler object reference
+     *
+     * @param jMenu the menu component object reference onto which the recent
+     * files JMenuItems are to be added
+     *
+     * @param storage the storage of the recent files list
+     *
+     * @param maxRecords the maximum no of recent files to be stored
+     *
+     * @param fileIconTypes the file icon type array. specifies what icon to be
+     * displayed for different files. the file type is recognized by their
+     * extension.
+     *
+     * @return the manager, whose recent files are still loading
+     *
+     * @see #openAsync(RecentFileHandler, JMenu, String, int, FileIconTypes[], StorageFormat)
+     */
+    public static RecentFilesManager openAsync(
+            RecentFileHandler recentFileHandler,
+            JMenu jMenu,
+            final RecentFilesStorage storage,
+            final int maxRecords,
+            FileIconTypes[] fileIconTypes) {
+        final RecentFilesManager manager = new RecentFilesManager(recentFileHandler, jMenu, fileIconTypes);
+        manager.loading = new FutureTask<>(new Callable<RecentFilesManager>() {
+            @Override
+            public RecentFilesManager call() throws IOException {
+                RecentFilesStore loaded;
+                try {
+                    loaded = new RecentFilesStore(storage, maxRecords);
+                } catch (IOException | RuntimeException ex) {
+                    // nothing more is queued, the adds get the load error
+                    manager.failed();
+                    // drop the placeholder, there is nothing to show
+                    manager.recentFilesMenu.loaded(null);
+                    throw ex;
+                }
+                manager.loaded(loaded);
+                return manager;
+            }
+        });
+        Thread thread = new Thread(manager.loading, "RecentFilesLoader");
+        thread.setDaemon(true);
+        thread.start();
+        return manager;
+    }
 
-                // create the attribute list
-                attributeList = new ArrayList<String>();
+    /**
+     * creates the recent files menu on the jmenu, with one action listener for
+     * all the recent files JMenuItems
+     *
+     * @param jMenu the menu component onto which the recent files JMenuItems
+     * are added
+     * @param store the store whose recent files are shown, or null while it
+     * is loading
+     * @param fileIconTypes the file icon type array
+     */
+    private void createMenu(JMenu jMenu, RecentFilesStore store, FileIconTypes[] fileIconTypes) {
+        this.recentFilesMenu = new RecentFilesMenu(jMenu, store, fileIconTypes, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // find the selected recent file from the JMenuItem
+                Object recentFile = ((JComponent) e.getSource()).getClientProperty(RecentFilesMenu.RECENT_FILE);
+                if (recentFile != null) {
+                    onRecentFileSelection((RecentFile) recentFile);
+                }
+            }
+        });
 
-                // the value of j starts with 1 as the value 0 is already used for the file name
-                // we dont know how many attributes are present so we will try to search for 
-                // all the possibilities till the integer max value
-                for (int j = 1; j < Integer.MAX_VALUE; j++) {
+        if (store != null) {
+            listen(store);
+        }
+    }
 
-                    // get the attribute 
-                    attribute = properties.getProperty(String.valueOf(i) + String.valueOf(j));
+    /**
+     * updates the recent files JMenuItems on every change of the store. the
+     * changes may come from any thread
+     *
+     * @param store the store
+     */
+    private void listen(RecentFilesStore store) {
+        final RecentFilesMenu menu = this.recentFilesMenu;
+        store.addChangeListener(new RecentFilesStore.ChangeListener() {
+            @Override
+            public void recentFilesChanged() {
+                menu.update();
+            }
+        });
+    }
 
-                    // if the returned attribute is not null then
-                    if (attribute != null) {
-                        // add the attribute to the attribute list
-                        attributeList.add(attribute);
-                    } else {
-                        // else if the attribute is null then it means 
-                        // the attribute for the file specified by the value 'i' is over
-                        // so then break the search for the attribute for the file
-                        break;
-                    }
+    /**
+     * takes over the loaded store, adding the recent files queued meanwhile.
+     * called on the loading thread
+     *
+     * @param loaded the loaded store
+     */
+    private void loaded(RecentFilesStore loaded) {
+        listen(loaded);
+        synchronized (queued) {
+            if (!queued.isEmpty()) {
+                try {
+                    loaded.addAll(queued);
+                } catch (IOException ex) {
+                    // the queued files are in the list, and their save is
+                    // retried with the next change
+                    Logger.getLogger(RecentFilesManager.class.getName()).log(Level.SEVERE, null, ex);
                 }
+                queued.clear();
+            }
+            store = loaded;
+        }
+        recentFilesMenu.loaded(loaded);
+    }
 
-                // if the attribute size is greater than zero then
-                if (attributeList.size() > 0) {
+    /**
+     * drops the recent files queued while the store was loading, as the load
+     * has failed. called on the loading thread
+     */
+    private void failed() {
+        synchronized (queued) {
+            loadFailed = true;
+            queued.clear();
+        }
+    }
 
-                    // convert the attributes list into attributes array
-                    String[] attributesArray = (String[]) attributeList.toArray(new String[0]);
+    /**
+     * checks whether the recent files added now must be queued, as the store
+     * is still loading. must be called holding the lock of the queued files
+     *
+     * @return true while the store is loading, false once it is loaded or its
+     * load has failed
+     */
+    private boolean isQueueing() {
+        return store == null && !loadFailed && !loading.isDone();
+    }
 
-                    // set the attributes array to the recent file
-                    recentFile.setAttributes(attributesArray);
-                } else {
-                    // set the attribute array as null
-                    recentFile.setAttributes(null);
+    /**
+     * getter for the load of the recent files of a manager opened with
+     * openAsync
+     *
+     * @return the future of the manager, done once its recent files are
+     * loaded and shown. it fails with the IOException of the load. for a
+     * manager created by a constructor it is done already
+     */
+    public Future<RecentFilesManager> getLoading() {
+        if (loading == null) {
+            FutureTask<RecentFilesManager> done = new FutureTask<>(new Runnable() {
+                @Override
+                public void run() {
                 }
+            }, this);
+            done.run();
+            return done;
+        }
+        return loading;
+    }
 
-                // add the recent file to the recent files list
-                recentFilesList.add(recentFile);
-            }
+    /**
+     * getter for the store, waiting for it while it is loading
+     *
+     * @return the store
+     * @throws IOException if the store could not be loaded
+     */
+    private RecentFilesStore loadedStore() throws IOException {
+        RecentFilesStore loadedStore = store;
+        if (loadedStore != null) {
+            return loadedStore;
         }
-        // load the jmenu with the recent files JMenuItems
-        loadRecentFilesMenuItems();
+        try {
+            loading.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            throw new IOException("The recent files could not be loaded", ex.getCause());
+        }
+        return store;
     }
 
     /**
-     * method to add a recent file with its associated attributes
+     * getter for the store, waiting for it while it is loading, for the
+     * methods which throw no IOException
+     *
+     * @return the store
+     * @throws IllegalStateException if the store could not be loaded
+     */
+    private RecentFilesStore store() {
+        try {
+            return loadedStore();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * method to add a recent file with its associated attributes. may be
+     * called from any thread, the JMenu is updated on the event dispatch
+     * thread
      *
      * @param file the recent file object
      *
@@ -210,272 +469,284 @@ public class RecentFilesManager {
      * @throws IOException
      */
     public void add(File file, String[] attributes) throws FileNotFoundException, IOException {
-        // process only if the file is a valid file
-        if (file != null) {
-            // create a recent file object based on the input parameter
-            RecentFile recentFile = new RecentFile(file, attributes);
-
-            // now if the recent file list doesnt contian the recent file then
-            if (!recentFilesList.contains(recentFile)) {
-
-                // check if the recent file list size is less than the max record size
-                if (recentFilesList.size() < maxRecords) {
-
-                    // if yes then add the recent file to the recent files list
-                    recentFilesList.add(recentFile);
-
-                    // rotate the list one time to make the last added (that is the current object added)
-                    // element to be the first element in the list
-                    Collections.rotate(recentFilesList, 1);
-                } else {
-
-                    // else if the max record size have been reached then
-                    // rotate to make the last element in the list to be at the first position
-                    Collections.rotate(recentFilesList, 1);
-
-                    // replace the first position with the new recent file object
-                    recentFilesList.set(0, recentFile);
+        if (store == null && !loading.isDone()) {
+            if (file == null) {
+                return;
+            }
+            synchronized (queued) {
+                if (isQueueing()) {
+                    // the later add of a queued file moves it to the end
+                    queued.remove(file);
+                    queued.put(file, attributes);
+                    return;
                 }
-            } // else if the the recent file list does contain the recent file then
-            else {
-
-                // removes the recent file with the same file object
-                recentFilesList.remove(recentFile);
-
-                // adds the recent file with new attributes
-                recentFilesList.add(recentFile);
             }
-
-            // save the recent files list to the config file
-            save();
-
-            // load the recent files menu items
-            loadRecentFilesMenuItems();
         }
+        loadedStore().add(file, attributes);
     }
 
     /**
-     * method to load the recent files as JmenuItem to the JMenu reference
-     * object
+     * method to add many recent files at once, with one save and one JMenu
+     * update
+     *
+     * @param recentFiles the attributes arrays by recent file. the last file
+     * of the map becomes the most recent one
+     *
+     * @throws IOException if the recent files list could not be saved
+     *
+     * @see RecentFilesStore#addAll(Map)
      */
-    private void loadRecentFilesMenuItems() {
-
-        // first clear all previous recent files JMenuItems
-        jmenu.removeAll();
-
-        // now for all recent files in the recent files list
-        for (final RecentFile recentFile : recentFilesList) {
-
-            // create a JmenuItem with the recent file name
-            JMenuItem jMenuItem = new JMenuItem(recentFile.getFile().getName());
-
-            // add action listner to the JMenuItem
-            jMenuItem.addActionListener(new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-
-                    // on action performed call the recent file handler's onRecentFileSelection method
-                    // and get the method result to a refernce
-                    boolean result = recentFileHandler.onRecentFileSelection(recentFile.getFile(), recentFile.getAttributes());
-
-                    // if the result is false (ie. the file handling failed)                    
-                    if (!result) {
-
-                        // remove the recent file from the recent file list
-                        recentFilesList.remove(recentFile);
-
-                        // save the current recent files list to config file
-                        try {
-                            save();
-                        } catch (FileNotFoundException ex) {
-                            Logger.getLogger(RecentFilesManager.class.getName()).log(Level.SEVERE, null, ex);
-                        } catch (IOException ex) {
-                            Logger.getLogger(RecentFilesManager.class.getName()).log(Level.SEVERE, null, ex);
+    public void addAll(Map<File, String[]> recentFiles) throws IOException {
+        if (store == null && !loading.isDone()) {
+            synchronized (queued) {
+                if (isQueueing()) {
+                    for (Map.Entry<File, String[]> entry : recentFiles.entrySet()) {
+                        if (entry.getKey() != null) {
+                            queued.remove(entry.getKey());
+                            queued.put(entry.getKey(), entry.getValue());
                         }
-
-                        // load the recent files JMenuItems to recent files JMenu
-                        loadRecentFilesMenuItems();
-                    }
-                }
-            });
-
-            // if the file icon type array is not null then
-            if (fileIconTypesArray != null) {
-                // for all file icon types in the array
-                for (FileIconTypes fileIconTypes : fileIconTypesArray) {
-
-                    // get the recent file extension from file name and check whether it matches
-                    // the file icon type's file extension 
-                    if (recentFile.getFile().getName().endsWith(fileIconTypes.getFileType())) {
-                        // on match set the JMenuItem icon as the file icon types icon
-                        jMenuItem.setIcon(fileIconTypes.getIcon());
-                        // break the search for the file icon type
-                        break;
                     }
+                    return;
                 }
             }
-
-            // add the JMenuItem to the JMenu
-            jmenu.add(jMenuItem);
         }
+        loadedStore().addAll(recentFiles);
     }
 
     /**
-     * method to save the recent file with its attributes to the config file
+     * method to remove many recent files at once, with one save and one JMenu
+     * update
      *
-     * @throws FileNotFoundException
-     * @throws IOException
+     * @param files the recent file objects
+     *
+     * @return the no of removed files
+     *
+     * @throws IOException if the recent files list could not be saved
      */
-    private void save() throws FileNotFoundException, IOException {
+    public int removeAll(Collection<File> files) throws IOException {
+        return loadedStore().removeAll(files);
+    }
 
-        // the recent file object
-        RecentFile recentFile;
+    /**
+     * opens a batch. the changes made until the batch is ended are saved and
+     * shown in the JMenu once, when it ends
+     *
+     * @see RecentFilesStore#beginBatch()
+     */
+    public void beginBatch() {
+        store().beginBatch();
+    }
 
-        // the index i represents the file index
-        int i = 0;
-        // the index j represents the attribute index
-        int j = 0;
+    /**
+     * ends a batch, saving its changes and updating the JMenu when the
+     * outermost batch ends
+     *
+     * @throws IOException if the recent files list could not be saved
+     *
+     * @see RecentFilesStore#endBatch()
+     */
+    public void endBatch() throws IOException {
+        loadedStore().endBatch();
+    }
 
-        // clear all properties
-        properties.clear();
+    /**
+     * getter for the store keeping the recent files list, waiting for it
+     * while it is loading
+     *
+     * @return the recent files store
+     */
+    public RecentFilesStore getStore() {
+        return store();
+    }
 
-        // from the recent file list create properties object
-        for (i = 0; i < recentFilesList.size(); i++) {
-            // get the recent file object
-            recentFile = recentFilesList.get(i);
-            // reset the j index value for iterations
-            j = 0;
+    /**
+     * method called when the user selects a recent file from the JMenu
+     *
+     * @param recentFile the selected recent file
+     */
+    private void onRecentFileSelection(RecentFile recentFile) {
 
-            // set the file property - the key for file will be '00'
-            // file absolute path is saved as value for the file key
-            properties.setProperty(String.valueOf(i) + String.valueOf(j), recentFile.getFile().getAbsolutePath());
+        // call the recent file handler's onRecentFileSelection method
+        // and get the method result to a refernce
+        boolean result = recentFileHandler.onRecentFileSelection(recentFile.getFile(), recentFile.getAttributes());
 
-            // save the attributres for the file 
-            // only if the recent file have any attribute
-            if (recentFile.getAttributes() != null) {
-                for (String attributes : recentFile.getAttributes()) {
-                    // increment the attrbutes index
-                    j++;
+        // if the result is false (ie. the file handling failed)
+        if (!result) {
+            RecentFilesMetrics metrics = store.getMetrics();
+            if (metrics != null) {
+                metrics.handlerFailed(recentFile.getFile());
+            }
 
-                    // set the attribute for the file
-                    properties.setProperty(String.valueOf(i) + String.valueOf(j), attributes);
-                }
+            // remove the recent file from the recent file list
+            try {
+                store.remove(recentFile.getFile());
+            } catch (IOException ex) {
+                Logger.getLogger(RecentFilesManager.class.getName()).log(Level.SEVERE, null, ex);
             }
         }
+    }
 
-        // save the properties object to the config file
-        properties.store(new FileOutputStream(configFile), null);
+    /**
+     * enables or disables showing the platform icons of the recent files, or
+     * small thumbnails for image files, in the JMenu. the icons are loaded in
+     * the background and cached for all the RecentFilesManagers. until an icon
+     * is loaded the icon of the file icon types is shown
+     *
+     * @param enabled true to show the platform icons
+     */
+    public void setSystemIconsEnabled(boolean enabled) {
+        recentFilesMenu.setSystemIcons(enabled);
     }
 
     /**
-     * the RecentFile class provides methods for handling recent file object,
-     * which are a file and its associated attribute array
+     * enables or disables the paged mode of the JMenu. in paged mode only the
+     * first page of recent files is shown in the JMenu, followed by a
+     * "More..." submenu holding the next page and its own "More..." submenu.
+     * the JMenuItems of a page are only created when its submenu is opened, so
+     * a large maximum no of recent files doesnt slow down the JMenu
+     *
+     * @param pageSize the no of recent files per page, or 0 to show all the
+     * recent files in the JMenu, which is the default
      */
-    private class RecentFile {
+    public void setPageSize(int pageSize) {
+        recentFilesMenu.setPageSize(pageSize);
+    }
 
-        /**
-         * the recent file reference
-         */
-        private File file = null;
-        /**
-         * the attribute array reference
-         */
-        private String[] attributes = null;
+    /**
+     * sets the metrics which receive the timings and counts of the store
+     * operations, the JMenu updates and the failures of the recent file
+     * handler
+     *
+     * @param metrics the metrics, or null to take no timings
+     *
+     * @see RecentFilesStore#setMetrics(RecentFilesMetrics)
+     */
+    public void setMetrics(RecentFilesMetrics metrics) {
+        store().setMetrics(metrics);
+    }
 
-        /**
-         * creates a recent file object
-         */
-        public RecentFile() {
-        }
+    /**
+     * sets the maximum total size of the recent files in addition to their
+     * maximum no
+     *
+     * @param maxBytes the maximum total size of the recent files, or 0 for no
+     * limit
+     *
+     * @throws IOException if the recent files list could not be saved after
+     * an eviction
+     *
+     * @see RecentFilesStore#setMaxBytes(long)
+     */
+    public void setMaxBytes(long maxBytes) throws IOException {
+        loadedStore().setMaxBytes(maxBytes);
+    }
 
-        /**
-         * creates a recent file object with the specified parameter
-         *
-         * @param file the recent file object
-         * @param attributes the attribute array
-         */
-        public RecentFile(File file, String[] attributes) {
-            // set the file reference
-            this.file = file;
-            // set the attributes reference
-            this.attributes = attributes;
-        }
+    /**
+     * adds a recent files listener, which is told on the event dispatch
+     * thread about the changes of the recent files list
+     *
+     * @param listener the recent files listener
+     *
+     * @see RecentFilesStore#addRecentFilesListener(RecentFilesListener)
+     */
+    public void addRecentFilesListener(RecentFilesListener listener) {
+        store().addRecentFilesListener(listener);
+    }
 
-        /**
-         * getter for the recent file
-         *
-         * @return the recent file reference
-         */
-        public File getFile() {
-            return file;
-        }
+    /**
+     * removes a recent files listener
+     *
+     * @param listener the recent files listener
+     */
+    public void removeRecentFilesListener(RecentFilesListener listener) {
+        store().removeRecentFilesListener(listener);
+    }
 
-        /**
-         * setter for the recent file object
-         *
-         * @param file the recent file reference object
-         */
-        public void setFile(File file) {
-            this.file = file;
-        }
+    /**
+     * enables or disables the write-behind mode of the store
+     *
+     * @param delayMillis the write delay in milliseconds. a value less than or
+     * equal to zero disables the write-behind mode, saving any pending changes
+     *
+     * @throws IOException if the pending changes could not be saved when
+     * disabling or changing the write-behind mode
+     *
+     * @see RecentFilesStore#setWriteBehindDelay(long)
+     */
+    public void setWriteBehindDelay(long delayMillis) throws IOException {
+        loadedStore().setWriteBehindDelay(delayMillis);
+    }
 
-        /**
-         * getter for the file attributes
-         *
-         * @return the attributes String array
-         */
-        public String[] getAttributes() {
-            return attributes;
-        }
+    /**
+     * checks on background threads whether the recent files still exist, and
+     * removes the missing files or shows them disabled in the JMenu
+     *
+     * @param removeMissing true to remove the missing files, false to show
+     * them disabled
+     *
+     * @param timeoutMillis the time in milliseconds after which the check of a
+     * file is given up
+     *
+     * @return the future no of missing files
+     *
+     * @see RecentFilesStore#validate(boolean, long)
+     */
+    public Future<Integer> validate(boolean removeMissing, long timeoutMillis) {
+        return store().validate(removeMissing, timeoutMillis);
+    }
 
-        /**
-         * the setter for the file attributes
-         *
-         * @param attributes the file attributes String array
-         */
-        public void setAttributes(String[] attributes) {
-            this.attributes = attributes;
-        }
+    /**
+     * finds the recent files whose paths fuzzily match a query, for a quick
+     * open of a recent file next to the JMenu, for example from a text field
+     * searching on every keystroke
+     *
+     * @param query the query, for example a part of a file name
+     *
+     * @param limit the maximum no of recent files found
+     *
+     * @return the matching recent files, the best match first
+     *
+     * @see RecentFilesStore#search(String, int)
+     */
+    public List<RecentFile> search(String query, int limit) {
+        return store().search(query, limit);
+    }
 
-        /**
-         * the overridden equals method of the object class
-         *
-         * @param obj the object to be compared with
-         * @return true if the files of the two object are the same, else
-         * returns false. here we are only concerned with the file object
-         * equality as for the same file there will be different attributes
-         */
-        @Override
-        public boolean equals(Object obj) {
-            // check whether the passed object is a kind of RecentFile
-            if (obj instanceof RecentFile) {
-                // cast the passed object into a RecentFile object
-                RecentFile rf = (RecentFile) obj;
-                // check whether the current objects file matches the passed objects file
-                if (file.getAbsolutePath().contentEquals(rf.getFile().getAbsolutePath())) {
-                    // if yes then return true
-                    return true;
-                } else {
-                    // else return false
-                    return false;
-                }
-            } else {
-                // if compared with any other object kind return false
-                return false;
-            }
-        }
+    /**
+     * shares or stops sharing the config file with the RecentFilesManagers of
+     * other processes. the recent files added by other processes are merged
+     * into the JMenu as soon as they are saved
+     *
+     * @param shared true to share the config file
+     *
+     * @throws IOException if the lock file could not be opened or the config
+     * file could not be loaded
+     *
+     * @see RecentFilesStore#setShared(boolean)
+     */
+    public void setShared(boolean shared) throws IOException {
+        loadedStore().setShared(shared);
+    }
 
-        /**
-         * overridden hashCode method of the object class. generates hash code
-         * based on the file object only
-         *
-         * @return the hash code for the current object
-         */
-        @Override
-        public int hashCode() {
-            int hash = 7;
-            hash = 79 * hash + Objects.hashCode(this.file.getAbsolutePath());
-            return hash;
-        }
+    /**
+     * saves the pending changes of the write-behind mode and waits for the
+     * save to complete. does nothing if the write-behind mode is disabled
+     *
+     * @throws IOException if the pending changes could not be saved
+     */
+    public void flush() throws IOException {
+        loadedStore().flush();
+    }
+
+    /**
+     * closes the store, saving the pending changes of the write-behind mode
+     *
+     * @throws IOException if the pending changes could not be saved
+     *
+     * @see RecentFilesStore#close()
+     */
+    @Override
+    public void close() throws IOException {
+        loadedStore().close();
     }
 }
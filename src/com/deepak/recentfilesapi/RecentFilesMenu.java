@@ -0,0 +1,559 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.awt.Component;
+import java.awt.event.ActionListener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.Icon;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.SwingUtilities;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
+
+/**
+ * the RecentFilesMenu shows the recent files as JMenuItems of a JMenu. on
+ * every update only the changed items are moved, inserted or removed, and the
+ * items which keep their order, the longest run of them, are not moved at
+ * all, so a promotion, a demotion or a frecency reorder of one recent file
+ * moves only its item. removed
+ * items are pooled for reuse and all the items share one action listener,
+ * which finds the selected recent file through the RECENT_FILE client
+ * property of the item. the JMenu is only changed on the event dispatch thread,
+ * which takes the snapshot of the store to show, so the changes made by other
+ * threads meanwhile are shown by one update.
+ * <p>
+ * in paged mode only the first page of recent files is shown in the JMenu,
+ * followed by a "More..." submenu with the next page and another "More..."
+ * submenu, and so on. the items of a submenu are only created when it is
+ * opened, so a long list costs no more than its first page until it is browsed
+ *
+ * @author deepak
+ */
+class RecentFilesMenu {
+
+    /**
+     * the client property of a JMenuItem holding its recent file
+     */
+    static final String RECENT_FILE = "RecentFilesAPI.recentFile";
+    /**
+     * the maximum no of pooled JMenuItems
+     */
+    private static final int MAX_POOL_SIZE = 32;
+    /**
+     * the text of the submenu holding the next page of recent files
+     */
+    private static final String MORE_TEXT = "More...";
+    /**
+     * the text of the placeholder shown while the store is loading
+     */
+    private static final String LOADING_TEXT = "Loading...";
+    /**
+     * the menu component onto which the recent files JMenuItems are added
+     */
+    private final JMenu jmenu;
+    /**
+     * the store whose recent files are shown, null until it is loaded
+     */
+    private volatile RecentFilesStore store;
+    /**
+     * true while the store is loading
+     */
+    private volatile boolean loading;
+    /**
+     * the disabled placeholder JMenuItem shown while the store is loading, or
+     * null if it is not shown
+     */
+    private JMenuItem loadingItem = null;
+    /**
+     * the resolver finding the icons of the recent files
+     */
+    private final FileIconResolver fileIconResolver;
+    /**
+     * the action listener shared by all the JMenuItems
+     */
+    private final ActionListener actionListener;
+    /**
+     * the shown JMenuItems in menu order
+     */
+    private final ArrayList<JMenuItem> items = new ArrayList<>();
+    /**
+     * the shown JMenuItems by the path key of their recent file
+     */
+    private final HashMap<String, JMenuItem> itemsByKey = new HashMap<>();
+    /**
+     * the removed JMenuItems kept for reuse
+     */
+    private final ArrayDeque<JMenuItem> pool = new ArrayDeque<>();
+    /**
+     * true if the platform icons of the recent files are shown
+     */
+    private boolean systemIcons = false;
+    /**
+     * the no of recent files per page in paged mode, or 0 to show all the
+     * recent files in the JMenu
+     */
+    private int pageSize = 0;
+    /**
+     * the submenu holding the second page of recent files, or null if it is
+     * not shown
+     */
+    private JMenu moreMenu = null;
+    /**
+     * true if an update is handed over to the event dispatch thread and not
+     * run yet
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    /**
+     * creates a recent files menu
+     *
+     * @param jmenu the menu component onto which the recent files JMenuItems
+     * are added
+     * @param store the store whose recent files are shown, or null to show a
+     * placeholder until the store is loaded
+     * @param fileIconTypes the file icon type array
+     * @param actionListener the action listener shared by all the JMenuItems
+     */
+    RecentFilesMenu(JMenu jmenu, RecentFilesStore store, FileIconTypes[] fileIconTypes, ActionListener actionListener) {
+        this.jmenu = jmenu;
+        this.store = store;
+        this.loading = store == null;
+        this.fileIconResolver = new FileIconResolver(fileIconTypes);
+        this.actionListener = actionListener;
+    }
+
+    /**
+     * shows the current recent files of the store. when called outside the
+     * event dispatch thread the update is handed over to it, and the updates
+     * requested until it runs are coalesced into one
+     */
+    void update() {
+        if (SwingUtilities.isEventDispatchThread()) {
+            refresh();
+            return;
+        }
+        if (pending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    // clear the flag first, so that a later change schedules
+                    // another update
+                    pending.set(false);
+                    refresh();
+                }
+            });
+        }
+    }
+
+    /**
+     * enables or disables showing the platform icons or thumbnails of the
+     * recent files. the icons are loaded in the background, and until then the
+     * icon of the file icon types is shown
+     *
+     * @param enabled true to show the platform icons
+     */
+    void setSystemIcons(final boolean enabled) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    setSystemIcons(enabled);
+                }
+            });
+            return;
+        }
+        systemIcons = enabled;
+        for (JMenuItem jMenuItem : items) {
+            setIcon(jMenuItem, (RecentFile) jMenuItem.getClientProperty(RECENT_FILE));
+        }
+        // the pages get the new icons when they are opened again
+        if (moreMenu != null) {
+            clearPage(moreMenu);
+        }
+    }
+
+    /**
+     * enables or disables the paged mode, in which only the first page of
+     * recent files is shown in the JMenu and the others in nested "More..."
+     * submenus, which are filled when they are opened
+     *
+     * @param pageSize the no of recent files per page, or 0 to show all the
+     * recent files in the JMenu
+     */
+    void setPageSize(final int pageSize) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    setPageSize(pageSize);
+                }
+            });
+            return;
+        }
+        this.pageSize = Math.max(0, pageSize);
+        if (moreMenu != null) {
+            // the pages of the old size are dropped
+            jmenu.remove(moreMenu);
+            clearPage(moreMenu);
+            moreMenu = null;
+        }
+        // remove all the shown items from the end, which is much faster than
+        // removing the items one by one when leaving a long list
+        for (int i = items.size() - 1; i >= 0; i--) {
+            jmenu.remove(i);
+            release(items.get(i));
+        }
+        items.clear();
+        itemsByKey.clear();
+        refresh();
+    }
+
+    /**
+     * shows the recent files of the store once it is loaded
+     *
+     * @param store the loaded store, or null if it could not be loaded, to
+     * remove the placeholder
+     */
+    void loaded(RecentFilesStore store) {
+        this.store = store;
+        this.loading = false;
+        update();
+    }
+
+    /**
+     * shows the current recent files of the store, or the placeholder while
+     * it is loading. called on the event dispatch thread
+     */
+    private void refresh() {
+        if (store == null && loading) {
+            if (loadingItem == null) {
+                loadingItem = new JMenuItem(LOADING_TEXT);
+                loadingItem.setEnabled(false);
+                jmenu.add(loadingItem);
+            }
+            return;
+        }
+        if (loadingItem != null) {
+            jmenu.remove(loadingItem);
+            loadingItem = null;
+        }
+        if (store != null) {
+            apply(firstPage());
+        }
+    }
+
+    /**
+     * takes the snapshot of the recent files shown in the JMenu. in paged mode
+     * one more recent file tells whether there is a next page
+     *
+     * @return the snapshot of the recent files
+     */
+    private RecentFile[] firstPage() {
+        RecentFilesSnapshot snapshot = store.getSnapshot();
+        return pageSize > 0 ? snapshot.array(0, pageSize + 1) : snapshot.array();
+    }
+
+    /**
+     * changes the JMenu to show the snapshot, moving, inserting and removing
+     * only the JMenuItems which differ from the shown ones. the items which
+     * are moved are the fewest possible, the ones outside a longest run of
+     * items in their old order
+     *
+     * @param snapshot the recent files snapshot. in paged mode a recent file
+     * beyond the first page tells that the "More..." submenu is shown
+     */
+    private void apply(RecentFile[] snapshot) {
+        RecentFilesMetrics metrics = store.getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        boolean more = pageSize > 0 && snapshot.length > pageSize;
+        if (more) {
+            snapshot = Arrays.copyOf(snapshot, pageSize);
+        }
+
+        // index the snapshot by the path key
+        HashMap<String, RecentFile> snapshotByKey = new HashMap<>();
+        for (RecentFile recentFile : snapshot) {
+            snapshotByKey.put(recentFile.getKey(), recentFile);
+        }
+
+        // remove the items of the recent files which are no longer in the list
+        Iterator<Map.Entry<String, JMenuItem>> shown = itemsByKey.entrySet().iterator();
+        while (shown.hasNext()) {
+            Map.Entry<String, JMenuItem> entry = shown.next();
+            if (!snapshotByKey.containsKey(entry.getKey())) {
+                JMenuItem jMenuItem = entry.getValue();
+                shown.remove();
+                items.remove(jMenuItem);
+                jmenu.remove(jMenuItem);
+                release(jMenuItem);
+            }
+        }
+
+        // the items in the longest run of the snapshot which keeps their old
+        // order stay where they are, the other items are taken out
+        HashMap<JMenuItem, Integer> oldPositions = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            oldPositions.put(items.get(i), i);
+        }
+        int[] positions = new int[snapshot.length];
+        for (int i = 0; i < snapshot.length; i++) {
+            Integer position = oldPositions.get(itemsByKey.get(snapshot[i].getKey()));
+            positions[i] = position == null ? -1 : position;
+        }
+        boolean[] stays = longestIncreasing(positions);
+        boolean[] moves = new boolean[items.size()];
+        for (int i = 0; i < snapshot.length; i++) {
+            if (positions[i] >= 0 && !stays[i]) {
+                moves[positions[i]] = true;
+            }
+        }
+        for (int i = moves.length - 1; i >= 0; i--) {
+            if (moves[i]) {
+                items.remove(i);
+                jmenu.remove(i);
+            }
+        }
+
+        // put the new and the moved items in between
+        for (int i = 0; i < snapshot.length; i++) {
+            RecentFile recentFile = snapshot[i];
+            JMenuItem jMenuItem = itemsByKey.get(recentFile.getKey());
+            if (jMenuItem == null) {
+                // insert an item for a new recent file
+                jMenuItem = acquire(recentFile);
+                jMenuItem.putClientProperty(RECENT_FILE, recentFile);
+                setIcon(jMenuItem, recentFile);
+                itemsByKey.put(recentFile.getKey(), jMenuItem);
+                items.add(i, jMenuItem);
+                jmenu.insert(jMenuItem, i);
+            } else if (!stays[i]) {
+                // insert the item of a moved recent file at its new place
+                items.add(i, jMenuItem);
+                jmenu.insert(jMenuItem, i);
+            }
+            // the recent file may come with new attributes, another spelling
+            // of its path or be found missing
+            jMenuItem.putClientProperty(RECENT_FILE, recentFile);
+            jMenuItem.setText(recentFile.getFile().getName());
+            jMenuItem.setEnabled(!recentFile.isMissing());
+        }
+
+        // put the submenu of the next page right after the items
+        if (more) {
+            if (moreMenu == null) {
+                moreMenu = createPage(pageSize);
+            } else {
+                jmenu.remove(moreMenu);
+            }
+            jmenu.insert(moreMenu, items.size());
+            // the pages may show other recent files by now, so they are filled
+            // again when opened, or at once if open
+            clearPage(moreMenu);
+            if (moreMenu.isPopupMenuVisible()) {
+                fillPage(moreMenu, pageSize);
+            }
+        } else if (moreMenu != null) {
+            jmenu.remove(moreMenu);
+            clearPage(moreMenu);
+            moreMenu = null;
+        }
+        if (metrics != null) {
+            metrics.menuUpdated(items.size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * finds a longest increasing subsequence of the old positions of the
+     * items, which are the items that need not move
+     *
+     * @param positions the old positions of the items by their new position,
+     * -1 for a new item
+     * @return true for the new positions whose items keep their place
+     */
+    static boolean[] longestIncreasing(int[] positions) {
+        // the last new position of the best subsequence of every length, and
+        // the new position before every new position in its subsequence
+        int[] tails = new int[positions.length];
+        int[] previous = new int[positions.length];
+        int length = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] < 0) {
+                continue;
+            }
+            // the longest subsequence which the old position can extend
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (positions[tails[middle]] < positions[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] stays = new boolean[positions.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            stays[i] = true;
+        }
+        return stays;
+    }
+
+    /**
+     * creates the empty submenu of a page of recent files, which is filled
+     * when it is opened
+     *
+     * @param from the index of the first recent file of the page
+     * @return the submenu
+     */
+    private JMenu createPage(final int from) {
+        final JMenu page = new JMenu(MORE_TEXT);
+        page.addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(MenuEvent e) {
+                if (page.getMenuComponentCount() == 0) {
+                    fillPage(page, from);
+                }
+            }
+
+            @Override
+            public void menuDeselected(MenuEvent e) {
+            }
+
+            @Override
+            public void menuCanceled(MenuEvent e) {
+            }
+        });
+        return page;
+    }
+
+    /**
+     * fills the submenu of a page with the JMenuItems of its recent files, and
+     * the submenu of the next page if there is one
+     *
+     * @param page the empty submenu
+     * @param from the index of the first recent file of the page
+     */
+    private void fillPage(JMenu page, int from) {
+        RecentFile[] recentFiles = store.getSnapshot().array(from, pageSize + 1);
+        for (int i = 0; i < Math.min(recentFiles.length, pageSize); i++) {
+            JMenuItem jMenuItem = acquire(recentFiles[i]);
+            jMenuItem.putClientProperty(RECENT_FILE, recentFiles[i]);
+            jMenuItem.setEnabled(!recentFiles[i].isMissing());
+            setIcon(jMenuItem, recentFiles[i]);
+            page.add(jMenuItem);
+        }
+        if (recentFiles.length > pageSize) {
+            page.add(createPage(from + pageSize));
+        }
+    }
+
+    /**
+     * empties the submenu of a page, releasing its JMenuItems and dropping the
+     * submenus of the next pages
+     *
+     * @param page the submenu
+     */
+    private void clearPage(JMenu page) {
+        for (Component component : page.getMenuComponents()) {
+            if (component instanceof JMenu) {
+                clearPage((JMenu) component);
+            } else if (component instanceof JMenuItem) {
+                release((JMenuItem) component);
+            }
+        }
+        page.removeAll();
+    }
+
+    /**
+     * gets a JMenuItem for the recent file from the pool, or creates a new one
+     *
+     * @param recentFile the recent file
+     * @return the JMenuItem showing the recent file
+     */
+    private JMenuItem acquire(RecentFile recentFile) {
+        JMenuItem jMenuItem = pool.poll();
+        if (jMenuItem == null) {
+            jMenuItem = new JMenuItem();
+            jMenuItem.addActionListener(actionListener);
+        }
+        // set the recent file name
+        jMenuItem.setText(recentFile.getFile().getName());
+        return jMenuItem;
+    }
+
+    /**
+     * sets the icon of the JMenuItem showing the recent file. the platform
+     * icon is used if it is enabled and cached, otherwise the icon of the file
+     * icon types is used while the platform icon is loaded, or if the file has
+     * no platform icon
+     *
+     * @param jMenuItem the JMenuItem
+     * @param recentFile the recent file shown by the JMenuItem
+     */
+    private void setIcon(final JMenuItem jMenuItem, final RecentFile recentFile) {
+        Icon icon = systemIcons ? FileIconLoader.getCached(recentFile) : null;
+        if (icon != null && icon != FileIconLoader.NO_ICON) {
+            jMenuItem.setIcon(icon);
+            return;
+        }
+        jMenuItem.setIcon(fileIconResolver.resolve(recentFile.getFile().getName()));
+        if (systemIcons && icon == null) {
+            FileIconLoader.load(recentFile, new FileIconLoader.Callback() {
+                @Override
+                public void iconLoaded(Icon loaded) {
+                    if (systemIcons && isWanted()) {
+                        jMenuItem.setIcon(loaded);
+                    }
+                }
+
+                @Override
+                public boolean isWanted() {
+                    // the item may show another recent file by now, or none
+                    // if it was paged out of the menu
+                    RecentFile shown = (RecentFile) jMenuItem.getClientProperty(RECENT_FILE);
+                    return shown != null && shown.getKey().equals(recentFile.getKey());
+                }
+            });
+        }
+    }
+
+    /**
+     * returns a removed JMenuItem to the pool
+     *
+     * @param jMenuItem the removed JMenuItem
+     */
+    private void release(JMenuItem jMenuItem) {
+        jMenuItem.putClientProperty(RECENT_FILE, null);
+        if (pool.size() < MAX_POOL_SIZE) {
+            pool.push(jMenuItem);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+
+/**
+ * the RecentFilesMetrics receives the timings and counts of the operations of
+ * a RecentFilesStore and its RecentFilesManager, to find out whether the
+ * recent files cause stalls of an application. the methods do nothing, so a
+ * subclass only overrides the ones it needs, for example to feed the timers
+ * and counters of a metrics library, or to commit Flight Recorder events on a
+ * JDK which has them. no timings are taken while no metrics are set.
+ * <p>
+ * the methods are called on the thread doing the operation, sometimes
+ * holding a lock of the store, so they must return quickly and must not call
+ * the store
+ *
+ * @author deepak
+ *
+ * @see RecentFilesStore#setMetrics(RecentFilesMetrics)
+ */
+public abstract class RecentFilesMetrics {
+
+    /**
+     * called when the recent files were loaded from the config file, when the
+     * store was created or when the changes of other processes were merged.
+     * the load of the store creation is reported when the metrics are set
+     *
+     * @param recentFiles the no of loaded recent files
+     * @param nanos the duration of the load in nanoseconds
+     */
+    public void loaded(int recentFiles, long nanos) {
+    }
+
+    /**
+     * called when a recent file was added
+     *
+     * @param nanos the duration of the add in nanoseconds, including the save
+     * unless the write-behind mode is enabled
+     */
+    public void added(long nanos) {
+    }
+
+    /**
+     * called when the recent files list was saved
+     *
+     * @param bytes the no of bytes written to the config file
+     * @param nanos the duration of the save in nanoseconds
+     */
+    public void saved(long bytes, long nanos) {
+    }
+
+    /**
+     * called when the JMenu was updated to show the recent files
+     *
+     * @param items the no of recent files JMenuItems shown
+     * @param nanos the duration of the update in nanoseconds
+     */
+    public void menuUpdated(int items, long nanos) {
+    }
+
+    /**
+     * called when recent files were evicted to keep the maximum no of recent
+     * files
+     *
+     * @param recentFiles the no of evicted recent files
+     */
+    public void evicted(int recentFiles) {
+    }
+
+    /**
+     * called when recent files which no longer exist were removed by a
+     * validation
+     *
+     * @param recentFiles the no of removed recent files
+     */
+    public void missingRemoved(int recentFiles) {
+    }
+
+    /**
+     * called when the RecentFileHandler failed to open a selected recent file,
+     * which is then removed
+     *
+     * @param file the recent file
+     */
+    public void handlerFailed(File file) {
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+
+/**
+ * the RecentFilesNotifier delivers the changes of a store to its
+ * RecentFilesListeners. the store hands over every published snapshot with
+ * the keys of the files promoted and evicted on the way to it, and the
+ * notifier delivers the difference between the last delivered snapshot and
+ * the latest one on the event dispatch thread, so all the snapshots published
+ * until it runs are coalesced into one event
+ *
+ * @author deepak
+ */
+class RecentFilesNotifier {
+
+    /**
+     * the store whose changes are delivered
+     */
+    private final RecentFilesStore store;
+    /**
+     * the listeners
+     */
+    private final CopyOnWriteArrayList<RecentFilesListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * true if a delivery is handed over to the event dispatch thread and not
+     * run yet
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+    /**
+     * the snapshot of the last delivered event, guarded by this
+     */
+    private RecentFilesSnapshot delivered;
+    /**
+     * the latest published snapshot, guarded by this
+     */
+    private RecentFilesSnapshot latest;
+    /**
+     * the keys of the files promoted since the last delivered event, guarded
+     * by this
+     */
+    private HashSet<String> promoted = new HashSet<>();
+    /**
+     * the keys of the files evicted since the last delivered event, guarded by
+     * this
+     */
+    private HashSet<String> evicted = new HashSet<>();
+
+    /**
+     * creates a recent files notifier
+     *
+     * @param store the store whose changes are delivered
+     */
+    RecentFilesNotifier(RecentFilesStore store) {
+        this.store = store;
+    }
+
+    /**
+     * adds a listener. the first listener starts the deliveries from the
+     * current snapshot. called holding the list lock of the store, so no
+     * snapshot is published meanwhile
+     *
+     * @param listener the listener
+     * @param current the current snapshot of the store
+     */
+    synchronized void addListener(RecentFilesListener listener, RecentFilesSnapshot current) {
+        if (listeners.isEmpty()) {
+            delivered = current;
+            latest = current;
+            promoted.clear();
+            evicted.clear();
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * removes a listener
+     *
+     * @param listener the listener
+     */
+    void removeListener(RecentFilesListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * getter for whether there are listeners
+     *
+     * @return true if there are listeners
+     */
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * takes a published snapshot and schedules its delivery. called holding
+     * the list lock of the store
+     *
+     * @param snapshot the published snapshot
+     * @param promotedKeys the keys of the files promoted since the previous
+     * snapshot
+     * @param evictedKeys the keys of the files evicted since the previous
+     * snapshot
+     */
+    void published(RecentFilesSnapshot snapshot, HashSet<String> promotedKeys, HashSet<String> evictedKeys) {
+        synchronized (this) {
+            latest = snapshot;
+            promoted.addAll(promotedKeys);
+            evicted.addAll(evictedKeys);
+        }
+        // deliver on the next event dispatch cycle, also when published on
+        // the event dispatch thread, so a burst of changes makes one event
+        if (pending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    // clear the flag first, so that a later change schedules
+                    // another delivery
+                    pending.set(false);
+                    deliver();
+                }
+            });
+        }
+    }
+
+    /**
+     * delivers the changes since the last delivered event to the listeners
+     */
+    private void deliver() {
+        RecentFilesSnapshot before;
+        RecentFilesSnapshot after;
+        HashSet<String> promotedKeys;
+        HashSet<String> evictedKeys;
+        synchronized (this) {
+            before = delivered;
+            after = latest;
+            promotedKeys = promoted;
+            evictedKeys = evicted;
+            delivered = latest;
+            promoted = new HashSet<>();
+            evicted = new HashSet<>();
+        }
+        if (before == after) {
+            return;
+        }
+        ArrayList<RecentFileChange> changes = diff(before.array(), after.array(), promotedKeys, evictedKeys);
+        if (changes.isEmpty()) {
+            return;
+        }
+        RecentFilesEvent event = new RecentFilesEvent(store, Collections.unmodifiableList(changes), after);
+        for (RecentFilesListener listener : listeners) {
+            listener.recentFilesChanged(event);
+        }
+    }
+
+    /**
+     * finds the net changes between two snapshots. a file which is new is
+     * added, a file which was promoted or moved ahead of a file which was
+     * ahead of it is promoted, a file which only changed its attributes or
+     * missing flag is updated, and a file which is gone is evicted if it was
+     * evicted else removed
+     *
+     * @param before the recent files before
+     * @param after the recent files after
+     * @param promotedKeys the keys of the promoted files
+     * @param evictedKeys the keys of the evicted files
+     * @return the changes, the files of after first, then the files gone
+     */
+    private static ArrayList<RecentFileChange> diff(RecentFile[] before, RecentFile[] after, HashSet<String> promotedKeys, HashSet<String> evictedKeys) {
+        HashMap<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < before.length; i++) {
+            indexes.put(before[i].getKey(), i);
+        }
+
+        // walk from the least recent file, keeping the least index before of
+        // the files walked, so a file moved ahead of one of them is found
+        RecentFileChange[] kept = new RecentFileChange[after.length];
+        int least = Integer.MAX_VALUE;
+        for (int i = after.length - 1; i >= 0; i--) {
+            RecentFile recentFile = after[i];
+            Integer index = indexes.remove(recentFile.getKey());
+            if (index == null) {
+                kept[i] = new RecentFileChange(RecentFileChange.Type.ADDED, recentFile);
+                continue;
+            }
+            RecentFile previous = before[index];
+            if (promotedKeys.contains(recentFile.getKey()) || index > least) {
+                kept[i] = new RecentFileChange(RecentFileChange.Type.PROMOTED, recentFile);
+            } else if (previous.isMissing() != recentFile.isMissing()
+                    || !previous.getFile().equals(recentFile.getFile())
+                    || !Arrays.equals(previous.attributes(), recentFile.attributes())) {
+                kept[i] = new RecentFileChange(RecentFileChange.Type.UPDATED, recentFile);
+            }
+            least = Math.min(least, index);
+        }
+        ArrayList<RecentFileChange> changes = new ArrayList<>();
+        for (RecentFileChange change : kept) {
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+
+        // the files left are gone, in their order before
+        for (RecentFile recentFile : before) {
+            if (indexes.containsKey(recentFile.getKey())) {
+                changes.add(new RecentFileChange(
+                        evictedKeys.contains(recentFile.getKey()) ? RecentFileChange.Type.EVICTED : RecentFileChange.Type.REMOVED,
+                        recentFile));
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * the RecentFilesSnapshot is an immutable list of the recent files of a
+ * RecentFilesStore as they were after one of its changes, from the most
+ * recent to the least recent one. the store publishes a new snapshot after
+ * every change, so reading it takes no lock and copies nothing, and a
+ * snapshot never shows a change half done. snapshots with the same version
+ * show the same recent files
+ *
+ * @author deepak
+ *
+ * @see RecentFilesStore#getSnapshot()
+ */
+public final class RecentFilesSnapshot extends AbstractList<RecentFile> implements RandomAccess {
+
+    /**
+     * the recent files, never changed
+     */
+    private final RecentFile[] recentFiles;
+    /**
+     * the version of the snapshot
+     */
+    private final long version;
+
+    /**
+     * Creates a new RecentFilesSnapshot object
+     *
+     * @param recentFiles the recent files, owned by the snapshot
+     * @param version the version of the snapshot
+     */
+    RecentFilesSnapshot(RecentFile[] recentFiles, long version) {
+        this.recentFiles = recentFiles;
+        this.version = version;
+    }
+
+    /**
+     * getter for a recent file
+     *
+     * @param index the index of the recent file, 0 for the most recent one
+     * @return the recent file
+     */
+    @Override
+    public RecentFile get(int index) {
+        return recentFiles[index];
+    }
+
+    /**
+     * getter for the no of recent files
+     *
+     * @return the no of recent files
+     */
+    @Override
+    public int size() {
+        return recentFiles.length;
+    }
+
+    /**
+     * getter for the version of the snapshot, which grows with every change
+     * of the store
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * getter for the recent files without copying them. the array must not be
+     * changed
+     *
+     * @return the recent files
+     */
+    RecentFile[] array() {
+        return recentFiles;
+    }
+
+    /**
+     * getter for a copy of a range of the recent files
+     *
+     * @param from the index of the first recent file
+     * @param count the maximum no of recent files
+     * @return the recent files of the range
+     */
+    RecentFile[] array(int from, int count) {
+        int start = Math.min(from, recentFiles.length);
+        return Arrays.copyOfRange(recentFiles, start, (int) Math.min((long) start + count, recentFiles.length));
+    }
+}
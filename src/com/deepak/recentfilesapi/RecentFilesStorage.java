@@ -0,0 +1,153 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * the RecentFilesStorage class loads and saves the recent files list of a
+ * RecentFilesStore. it is the extension point for other storage backends: a
+ * subclass implements load and write, and the store is created with it. the
+ * store calls the storage from one thread at a time. the built in storages are
+ * created with create(File, StorageFormat) and inMemory()
+ *
+ * @author deepak
+ */
+public abstract class RecentFilesStorage {
+
+    /**
+     * the lock of the config file when it is shared with other processes,
+     * else null. the storage takes it for its own background writes
+     */
+    volatile ConfigFileLock fileLock = null;
+
+    /**
+     * creates a built in storage keeping the recent files in a config file
+     *
+     * @param configFile the config file. it is created if it doesnt exist
+     * @param storageFormat the format of the config file
+     * @return the storage
+     */
+    public static RecentFilesStorage create(File configFile, StorageFormat storageFormat) {
+        return storageFormat.createStorage(configFile);
+    }
+
+    /**
+     * creates a storage keeping the recent files in memory only, for example
+     * for tests. a store created with it starts empty
+     *
+     * @return the storage
+     */
+    public static RecentFilesStorage inMemory() {
+        return new MemoryStorage();
+    }
+
+    /**
+     * loads the saved recent files
+     *
+     * @param maxRecords the maximum no of recent files to be loaded
+     * @return the recent files, from the most recent to the least recent one.
+     * recent files after the maximum no, or with the path of a more recent
+     * one, are dropped
+     * @throws IOException if the recent files could not be loaded
+     */
+    protected abstract List<RecentFile> load(int maxRecords) throws IOException;
+
+    /**
+     * saves the recent files list
+     *
+     * @param snapshot the snapshot of the recent files list, from the most
+     * recent to the least recent one
+     * @param changes the changes made to the list since the last save, which
+     * lead to the snapshot
+     * @return the no of bytes written
+     * @throws IOException if the recent files could not be saved. the changes
+     * are passed again with the next save
+     */
+    protected abstract long write(RecentFile[] snapshot, List<RecentFileChange> changes) throws IOException;
+
+    /**
+     * waits for the background work of the storage to complete and releases
+     * its resources
+     *
+     * @throws IOException if the background work failed
+     */
+    protected void close() throws IOException {
+    }
+
+    /**
+     * getter for the file in which the recent files are kept. the store puts
+     * its lock file for sharing with other processes and its frecency file
+     * next to it
+     *
+     * @return the config file, or null if the storage doesnt keep the recent
+     * files in a file, in which case the store cannot be shared and the
+     * frecency ranks are not saved
+     */
+    public File getConfigFile() {
+        return null;
+    }
+
+    /**
+     * the content writer used by writeAtomically
+     */
+    interface ContentWriter {
+
+        /**
+         * writes the file content
+         *
+         * @param out the output stream of the file
+         * @throws IOException if the content could not be written
+         */
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * writes a file through a temp file which is synced to disk and then
+     * renamed over the target file, so the target file is never left empty or
+     * truncated
+     *
+     * @param target the file to be written
+     * @param contentWriter the content writer
+     * @return the no of bytes written
+     * @throws IOException if the file could not be written
+     */
+    static long writeAtomically(File target, ContentWriter contentWriter) throws IOException {
+        // write the temp file in the same folder as the target file
+        File temp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            contentWriter.write(out);
+            out.flush();
+            out.getFD().sync();
+        }
+        long length = temp.length();
+        try {
+            Files.move(temp.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return length;
+    }
+}
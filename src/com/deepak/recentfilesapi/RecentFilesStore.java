@@ -0,0 +1,1523 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * RecentFilesStore keeps a list of recent files with their attributes and
+ * saves it to a config file. the store has no user interface, so it can be
+ * used in any program. the RecentFilesManager shows a store in a JMenu.
+ * <p>
+ * a store can be used from any thread. the recent files list is only locked
+ * for the constant time change itself, and the changes are saved by one
+ * thread at a time outside that lock: a thread which finds its changes
+ * already saved by another thread does not save them again.
+ * <p>
+ * a config file can be shared by the stores of several processes, see
+ * setShared(boolean)
+ *
+ * @author deepak
+ */
+public class RecentFilesStore implements Closeable {
+
+    /**
+     * the receiver of the changes of a store, used by the RecentFilesManager
+     */
+    interface ChangeListener {
+
+        /**
+         * called after every change of the recent files list, on the thread
+         * which made the change. the listener takes a snapshot when it needs
+         * one, so many quick changes can be shown by one snapshot
+         */
+        void recentFilesChanged();
+    }
+    /**
+     * the recent files config file
+     */
+    private final File configFile;
+    /**
+     * the maximum no of records to be stored
+     */
+    private final int maxRecords;
+    /**
+     * the maximum total size of the recent files, or 0 for no limit. guarded
+     * by the list lock
+     */
+    private long maxBytes = 0;
+    /**
+     * the recent files list, guarded by the list lock
+     */
+    private final RecentFilesList recentFilesList = new RecentFilesList();
+    /**
+     * the lock guarding the recent files list and its unsaved changes
+     */
+    private final ReentrantLock listLock = new ReentrantLock();
+    /**
+     * the lock serializing the saves, never taken while holding the list lock
+     */
+    private final Object saveLock = new Object();
+    /**
+     * the lock serializing the write-behind mode changes
+     */
+    private final Object writerLock = new Object();
+    /**
+     * the storage which loads and saves the recent files list
+     */
+    private final RecentFilesStorage storage;
+    /**
+     * the change listeners
+     */
+    private final CopyOnWriteArrayList<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    /**
+     * the changes made to the recent files list since the last save, guarded
+     * by the list lock
+     */
+    private ArrayList<RecentFileChange> changes = new ArrayList<>();
+    /**
+     * the background writer used in write-behind mode, null when the recent
+     * files list is saved on the calling thread
+     */
+    private volatile RecentFilesWriter recentFilesWriter = null;
+    /**
+     * the lock of the config file when it is shared with other processes,
+     * else null. guarded by the save lock
+     */
+    private ConfigFileLock fileLock = null;
+    /**
+     * the watcher of the config file when it is shared with other processes,
+     * else null. guarded by the save lock
+     */
+    private ConfigFileWatcher fileWatcher = null;
+    /**
+     * the recent files as last loaded from or saved to the config file,
+     * guarded by the save lock
+     */
+    private RecentFile[] savedFiles;
+    /**
+     * the generation no of the shared config file when it was last loaded or
+     * saved, guarded by the save lock
+     */
+    private long savedGeneration = 0;
+    /**
+     * true if the recent files are identified by their canonical path keys
+     */
+    private volatile boolean canonicalKeys = false;
+    /**
+     * the frecency ranks in frecency ranking mode, else null. guarded by the
+     * list lock
+     */
+    private FrecencyIndex frecency = null;
+    /**
+     * true if the frecency ranks changed since the last save, guarded by the
+     * list lock
+     */
+    private boolean frecencyChanged = false;
+    /**
+     * the search index of the recent files history, created by the first
+     * search. guarded by the list lock
+     */
+    private TrigramIndex searchIndex = null;
+    /**
+     * the metrics receiving the timings and counts, or null
+     */
+    private volatile RecentFilesMetrics metrics = null;
+    /**
+     * the no of recent files loaded by the constructor
+     */
+    private final int loadedFiles;
+    /**
+     * the duration of the load of the constructor in nanoseconds
+     */
+    private final long loadNanos;
+    /**
+     * the no of open batches, guarded by the list lock
+     */
+    private int batchDepth = 0;
+    /**
+     * true if the list was changed in the open batches, guarded by the list
+     * lock
+     */
+    private boolean batchChanged = false;
+    /**
+     * the snapshot of the recent files after the last change, replaced as a
+     * whole holding the list lock
+     */
+    private volatile RecentFilesSnapshot published;
+    /**
+     * the version of the last published snapshot, guarded by the list lock
+     */
+    private long version = 0;
+    /**
+     * the notifier of the recent files listeners
+     */
+    private final RecentFilesNotifier notifier = new RecentFilesNotifier(this);
+    /**
+     * the keys of the files promoted since the last published snapshot, only
+     * kept while there are recent files listeners. guarded by the list lock
+     */
+    private HashSet<String> promotedKeys = new HashSet<>();
+    /**
+     * the keys of the files evicted since the last published snapshot, only
+     * kept while there are recent files listeners. guarded by the list lock
+     */
+    private HashSet<String> evictedKeys = new HashSet<>();
+
+    /**
+     * Creates a new RecentFilesStore object
+     *
+     * @param configFileName the recent files config save file name. the file
+     * is created if it doesnt exist
+     *
+     * @param maxRecords the maximum no of recent files to be stored
+     *
+     * @throws IOException if the config file could not be created or loaded
+     */
+    public RecentFilesStore(String configFileName, int maxRecords) throws IOException {
+        this(configFileName, maxRecords, StorageFormat.CONFIG_FILE);
+    }
+
+    /**
+     * Creates a new RecentFilesStore object which stores the recent files list
+     * in the specified storage format
+     *
+     * @param configFileName the recent files config save file name. the file
+     * is created if it doesnt exist
+     *
+     * @param maxRecords the maximum no of recent files to be stored
+     *
+     * @param storageFormat the format in which the recent files list is stored
+     *
+     * @throws IOException if the config file could not be created or loaded
+     */
+    public RecentFilesStore(String configFileName, int maxRecords, StorageFormat storageFormat) throws IOException {
+        this(RecentFilesStorage.create(new File(configFileName), storageFormat), maxRecords);
+    }
+
+    /**
+     * Creates a new RecentFilesStore object which loads and saves the recent
+     * files list through a storage, for example a storage of another backend
+     * or an in memory storage for tests
+     *
+     * @param storage the storage
+     *
+     * @param maxRecords the maximum no of recent files to be stored
+     *
+     * @throws IOException if the config file of the storage could not be
+     * created or the recent files could not be loaded
+     *
+     * @see RecentFilesStorage
+     */
+    public RecentFilesStore(RecentFilesStorage storage, int maxRecords) throws IOException {
+
+        // the config file of the storage, if it keeps the recent files in one
+        this.configFile = storage.getConfigFile();
+
+        // if file doesnt exists then create one
+        if (configFile != null && !configFile.exists()) {
+            configFile.createNewFile();
+        }
+
+        // set the maximun no of records
+        this.maxRecords = maxRecords;
+
+        // set the storage
+        this.storage = storage;
+
+        // load the saved recent files
+        long start = System.nanoTime();
+        load(recentFilesList);
+        this.loadNanos = System.nanoTime() - start;
+        this.savedFiles = recentFilesList.toArray();
+        this.loadedFiles = savedFiles.length;
+        this.published = new RecentFilesSnapshot(savedFiles, version);
+    }
+
+    /**
+     * method to add a recent file with its associated attributes. the file is
+     * put at the front of the list. if the list already contains the file then
+     * it is moved to the front with the new attributes. in frecency ranking
+     * mode the file is put at the place of its new rank instead
+     *
+     * @param file the recent file object
+     *
+     * @param attributes the string attributes array
+     *
+     * @throws IOException if the recent files list could not be saved
+     */
+    public void add(File file, String[] attributes) throws IOException {
+        // process only if the file is a valid file
+        if (file != null) {
+            RecentFilesMetrics m = metrics;
+            long start = m == null ? 0 : System.nanoTime();
+
+            // create a recent file object based on the input parameter
+            RecentFile recentFile = keyed(new RecentFile(file, attributes));
+
+            listLock.lock();
+            try {
+                put(recentFile, true);
+            } finally {
+                listLock.unlock();
+            }
+
+            changed();
+            if (m != null) {
+                m.added(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * method to add many recent files at once, with one save and one change
+     * notification. the files are added in the iteration order of the map, so
+     * the last file becomes the most recent one
+     *
+     * @param recentFiles the attributes arrays by recent file
+     *
+     * @throws IOException if the recent files list could not be saved
+     */
+    public void addAll(Map<File, String[]> recentFiles) throws IOException {
+        beginBatch();
+        try {
+            for (Map.Entry<File, String[]> entry : recentFiles.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * method to remove many recent files at once, with one save and one change
+     * notification
+     *
+     * @param files the recent file objects
+     *
+     * @return the no of removed files
+     *
+     * @throws IOException if the recent files list could not be saved
+     */
+    public int removeAll(Collection<File> files) throws IOException {
+        int removed = 0;
+        beginBatch();
+        try {
+            for (File file : files) {
+                if (remove(file)) {
+                    removed++;
+                }
+            }
+        } finally {
+            endBatch();
+        }
+        return removed;
+    }
+
+    /**
+     * opens a batch. the changes made until the batch is ended are saved,
+     * published and notified once, when it ends. batches may be nested, the
+     * changes are saved when the outermost batch ends. the changes made by
+     * other threads meanwhile are part of the batch too. use it like
+     * <pre>
+     * store.beginBatch();
+     * try {
+     *     ...
+     * } finally {
+     *     store.endBatch();
+     * }
+     * </pre>
+     */
+    public void beginBatch() {
+        listLock.lock();
+        try {
+            batchDepth++;
+        } finally {
+            listLock.unlock();
+        }
+    }
+
+    /**
+     * ends a batch. when the outermost batch ends, its changes are saved and
+     * the change listeners are notified once
+     *
+     * @throws IOException if the recent files list could not be saved
+     * @throws IllegalStateException if no batch is open
+     */
+    public void endBatch() throws IOException {
+        boolean commit;
+        listLock.lock();
+        try {
+            if (batchDepth == 0) {
+                throw new IllegalStateException("No batch is open");
+            }
+            commit = --batchDepth == 0 && batchChanged;
+            if (commit) {
+                batchChanged = false;
+            }
+        } finally {
+            listLock.unlock();
+        }
+        if (commit) {
+            changed();
+        }
+    }
+
+    /**
+     * method to remove a recent file
+     *
+     * @param file the recent file object
+     *
+     * @return true if the list contained the file
+     *
+     * @throws IOException if the recent files list could not be saved
+     */
+    public boolean remove(File file) throws IOException {
+        if (file == null) {
+            return false;
+        }
+        String key = keyed(new RecentFile(file, null)).getKey();
+        listLock.lock();
+        try {
+            if (delete(key, true) == null) {
+                return false;
+            }
+        } finally {
+            listLock.unlock();
+        }
+        changed();
+        return true;
+    }
+
+    /**
+     * getter for the recent files
+     *
+     * @return the immutable snapshot of the recent files list, from the most
+     * recent to the least recent one
+     *
+     * @see #getSnapshot()
+     */
+    public List<RecentFile> getRecentFiles() {
+        return published;
+    }
+
+    /**
+     * getter for the snapshot of the recent files list after its last change.
+     * a new snapshot is published after every change, so this takes no lock
+     * and copies nothing, and can be called as often as needed, for example by
+     * every view showing the recent files while others are added. the snapshot
+     * never changes, so it can be kept and compared by its version with a
+     * later one. the changes of a batch are published together when it ends
+     *
+     * @return the snapshot of the recent files, from the most recent to the
+     * least recent one
+     */
+    public RecentFilesSnapshot getSnapshot() {
+        return published;
+    }
+
+    /**
+     * finds the recent files whose paths match a query, for a quick open of a
+     * recent file. the query is matched fuzzily against the whole paths, so
+     * parts of a file name or its folders match, and a few typos are allowed.
+     * the matches are ranked best first: the query found as it is in the file
+     * name, then in the path, then by how many of its three character
+     * sequences the path contains, and the more recent file first. in frecency
+     * ranking mode all the tracked files are searched, not only the shown
+     * ones. the search index is built by the first search and then kept up to
+     * date with every change, so a search takes milliseconds even for a
+     * hundred thousand files
+     *
+     * @param query the query, for example a part of a file name. a blank
+     * query finds the most recent files
+     *
+     * @param limit the maximum no of recent files found. no recent files are
+     * found for a limit of 0 or less
+     *
+     * @return the matching recent files, the best match first
+     */
+    public List<RecentFile> search(String query, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (query.trim().isEmpty()) {
+            RecentFilesSnapshot snapshot = published;
+            return snapshot.subList(0, Math.min(limit, snapshot.size()));
+        }
+        listLock.lock();
+        try {
+            if (searchIndex == null) {
+                searchIndex = new TrigramIndex();
+                indexHistory();
+            }
+            return Collections.unmodifiableList(searchIndex.search(query, limit));
+        } finally {
+            listLock.unlock();
+        }
+    }
+
+    /**
+     * enables or disables identifying the recent files by their canonical
+     * paths. by default a recent file is identified by its absolute path
+     * without "." and ".." names, ignoring the case on a case insensitive
+     * file system. a canonical path also resolves the symbolic links of an
+     * existing file, so a file opened through a link and through its real
+     * path is listed once, at the cost of a file system access on every add
+     * and remove. recent files which turn out to be the same file are merged
+     * into the most recent one
+     *
+     * @param enabled true to identify the recent files by their canonical
+     * paths
+     *
+     * @throws IOException if the merged recent files list could not be saved
+     */
+    public void setCanonicalKeys(boolean enabled) throws IOException {
+        boolean merged = false;
+        synchronized (saveLock) {
+            if (enabled == canonicalKeys) {
+                return;
+            }
+            canonicalKeys = enabled;
+
+            // compute the new keys outside the list lock, as they may need
+            // file system accesses
+            HashMap<String, String> keys = new HashMap<>();
+            for (RecentFile recentFile : snapshot()) {
+                keys.put(recentFile.getKey(), keyOf(recentFile.getFile()));
+            }
+            List<RecentFile> tracked;
+            listLock.lock();
+            try {
+                tracked = frecency == null ? Collections.<RecentFile>emptyList() : frecency.top(frecency.size());
+            } finally {
+                listLock.unlock();
+            }
+            for (RecentFile recentFile : tracked) {
+                if (!keys.containsKey(recentFile.getKey())) {
+                    keys.put(recentFile.getKey(), keyOf(recentFile.getFile()));
+                }
+            }
+
+            listLock.lock();
+            try {
+                RecentFile[] current = recentFilesList.toArray();
+                recentFilesList.clear();
+                if (frecency != null) {
+                    // the ranks of the files with the same key add up
+                    frecency.rekey(keys);
+                    frecencyChanged = true;
+                    for (RecentFile recentFile : rekey(current, keys, true)) {
+                        if (!frecency.contains(recentFile.getKey())) {
+                            frecency.access(recentFile, System.currentTimeMillis());
+                        }
+                    }
+                    showTopRanked();
+                } else {
+                    for (RecentFile recentFile : rekey(current, keys, true)) {
+                        recentFilesList.addLast(recentFile);
+                    }
+                }
+                merged = frecency != null || recentFilesList.size() < current.length;
+            } finally {
+                listLock.unlock();
+            }
+            savedFiles = rekey(savedFiles, keys, false);
+        }
+        if (merged) {
+            changed();
+        }
+    }
+
+    /**
+     * enables or disables the frecency ranking mode. in this mode the recent
+     * files are ranked by frecency, the frequency of their accesses weighted
+     * by how recent the accesses are, instead of by their last access only.
+     * every add counts as an access, and the weight of an access halves every
+     * half life. the ranks of many more files than the shown maximum no of
+     * recent files are tracked, so a file which drops out of the list comes
+     * back with its earlier accesses. the ranks are saved to a file named
+     * like the config file with a ".frecency" extension
+     *
+     * @param trackedRecords the maximum no of files whose ranks are tracked,
+     * at least the maximum no of recent files. a value less than or equal to
+     * zero disables the frecency ranking mode, keeping the current order
+     *
+     * @param halfLifeMillis the half life of the access weights in
+     * milliseconds, for example a week
+     *
+     * @throws IOException if the saved ranks could not be loaded, or the
+     * reordered recent files list could not be saved
+     */
+    public void setFrecencyRanking(int trackedRecords, long halfLifeMillis) throws IOException {
+        synchronized (saveLock) {
+            if (trackedRecords <= 0) {
+                listLock.lock();
+                try {
+                    frecency = null;
+                    frecencyChanged = false;
+                    indexHistory();
+                } finally {
+                    listLock.unlock();
+                }
+                return;
+            }
+
+            // load the saved ranks outside the list lock
+            FrecencyIndex index = new FrecencyIndex(Math.max(trackedRecords, maxRecords), halfLifeMillis);
+            boolean loaded = configFile != null && index.load(frecencyFile());
+
+            listLock.lock();
+            try {
+                // rank the recent files without saved ranks as accessed now,
+                // keeping their order
+                RecentFile[] current = recentFilesList.toArray();
+                long now = System.currentTimeMillis();
+                for (int i = current.length - 1; i >= 0; i--) {
+                    if (!loaded || !index.contains(current[i].getKey())) {
+                        index.access(current[i], now - i);
+                    }
+                }
+                frecency = index;
+                frecencyChanged = true;
+                showTopRanked();
+                indexHistory();
+            } finally {
+                listLock.unlock();
+            }
+        }
+        changed();
+    }
+
+    /**
+     * checks on background threads whether the recent files still exist. the
+     * files are checked in parallel batches, and a file whose check takes
+     * longer than the timeout, for example on a slow network mount, is left as
+     * it is. the missing files are removed, or flagged as missing and shown
+     * disabled, all at once with one save
+     *
+     * @param removeMissing true to remove the missing files, false to flag
+     * them. a flagged file which is found again is no longer flagged
+     *
+     * @param timeoutMillis the time in milliseconds after which the check of a
+     * file is given up
+     *
+     * @return the future no of missing files, done when the store is updated
+     *
+     * @see RecentFile#isMissing()
+     */
+    public Future<Integer> validate(boolean removeMissing, long timeoutMillis) {
+        return RecentFilesValidator.validate(this, removeMissing, timeoutMillis);
+    }
+
+    /**
+     * sets the metrics which receive the timings and counts of the loads,
+     * adds, saves, evictions and removals of missing files of the store, and
+     * of the JMenu updates and handler failures of its RecentFilesManager.
+     * the load done when the store was created is reported at once
+     *
+     * @param metrics the metrics, or null to take no timings
+     */
+    public void setMetrics(RecentFilesMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.loaded(loadedFiles, loadNanos);
+        }
+    }
+
+    /**
+     * getter for the metrics
+     *
+     * @return the metrics, or null if there are none
+     */
+    RecentFilesMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * getter for the maximum no of recent files
+     *
+     * @return the maximum no of recent files to be stored
+     */
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+
+    /**
+     * sets the maximum total size of the recent files in addition to their
+     * maximum no, so that files with large attributes, such as a saved editor
+     * state, cannot make the config file and the memory use grow without a
+     * bound. the size of a recent file is the no of characters of its path
+     * and attributes, roughly its bytes in the config file. the sizes are
+     * summed up as the list changes, and the least recent files are evicted
+     * until the total fits, but the most recent file is always kept. a lower
+     * limit evicts the files exceeding it right away
+     *
+     * @param maxBytes the maximum total size of the recent files, or 0 for no
+     * limit, which is the default
+     *
+     * @throws IOException if the recent files list could not be saved after
+     * an eviction
+     */
+    public void setMaxBytes(long maxBytes) throws IOException {
+        int evictions;
+        listLock.lock();
+        try {
+            this.maxBytes = Math.max(0, maxBytes);
+            evictions = evict(true);
+        } finally {
+            listLock.unlock();
+        }
+        if (evictions > 0) {
+            changed();
+        }
+    }
+
+    /**
+     * getter for the maximum total size of the recent files
+     *
+     * @return the maximum total size, or 0 for no limit
+     */
+    public long getMaxBytes() {
+        listLock.lock();
+        try {
+            return maxBytes;
+        } finally {
+            listLock.unlock();
+        }
+    }
+
+    /**
+     * enables or disables the write-behind mode. in write-behind mode the
+     * recent files list is saved on a background thread and all the changes
+     * made within the write delay are coalesced into one write, so the calling
+     * thread never blocks on disk I/O. call flush() or close() to make sure the
+     * last changes are saved, for example when the application exits
+     *
+     * @param delayMillis the write delay in milliseconds. a value less than or
+     * equal to zero disables the write-behind mode, saving any pending changes
+     *
+     * @throws IOException if the pending changes could not be saved when
+     * disabling or changing the write-behind mode
+     */
+    public void setWriteBehindDelay(long delayMillis) throws IOException {
+        synchronized (writerLock) {
+            // stop the current writer after saving its pending changes
+            stopWriter();
+
+            // create a new writer if the write-behind mode is enabled
+            if (delayMillis > 0) {
+                recentFilesWriter = new RecentFilesWriter(this, delayMillis);
+            }
+        }
+    }
+
+    /**
+     * saves the pending changes of the write-behind mode and waits for the
+     * save to complete. does nothing if the write-behind mode is disabled
+     *
+     * @throws IOException if the pending changes could not be saved
+     */
+    public void flush() throws IOException {
+        RecentFilesWriter writer = recentFilesWriter;
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * saves the pending changes of the write-behind mode and stops the
+     * background threads of the store. the recent files list is then saved on
+     * the calling thread again, until the write-behind mode is enabled again
+     *
+     * @throws IOException if the pending changes could not be saved
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (writerLock) {
+                stopWriter();
+            }
+            // save the changes of a failed save once more
+            save();
+        } finally {
+            try {
+                storage.close();
+            } finally {
+                synchronized (saveLock) {
+                    stopSharing();
+                }
+            }
+        }
+    }
+
+    /**
+     * shares or stops sharing the config file with the stores of other
+     * processes. while shared, the config file is locked around every load
+     * and save, and changes saved by other processes are merged into the
+     * recent files list before saving, so no process overwrites the changes
+     * of another one. the config file is watched, and the changes of other
+     * processes are merged as soon as they are saved. only the recent files
+     * changed by other processes are merged, the recent files changed by this
+     * store and not saved yet are kept.
+     * <p>
+     * enable sharing right after creating the store, before changing it
+     *
+     * @param shared true to share the config file
+     *
+     * @throws IOException if the lock file could not be opened or the config
+     * file could not be loaded
+     *
+     * @throws UnsupportedOperationException if the storage doesnt keep the
+     * recent files in a file
+     */
+    public void setShared(boolean shared) throws IOException {
+        boolean merged = false;
+        try {
+            synchronized (saveLock) {
+                if (shared == (fileLock != null)) {
+                    return;
+                }
+                if (!shared) {
+                    stopSharing();
+                    return;
+                }
+                if (configFile == null) {
+                    throw new UnsupportedOperationException("The storage doesnt keep the recent files in a file");
+                }
+                fileLock = new ConfigFileLock(configFile);
+                storage.fileLock = fileLock;
+                try {
+                    // merge the changes saved since the store was loaded
+                    fileLock.lockShared();
+                    try {
+                        merged = mergeSavedChanges();
+                    } finally {
+                        fileLock.unlock();
+                    }
+                    fileWatcher = new ConfigFileWatcher(fileLock.getLockFile(), new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                reload();
+                            } catch (IOException ex) {
+                                Logger.getLogger(RecentFilesStore.class.getName()).log(Level.SEVERE, null, ex);
+                            }
+                        }
+                    });
+                } catch (IOException | RuntimeException ex) {
+                    stopSharing();
+                    throw ex;
+                }
+            }
+        } finally {
+            if (merged) {
+                notifyChangeListeners();
+            }
+        }
+    }
+
+    /**
+     * merges the changes saved by other processes into the recent files list.
+     * this is done automatically while the config file is shared, and does
+     * nothing if it is not shared
+     *
+     * @throws IOException if the config file could not be loaded
+     */
+    public void reload() throws IOException {
+        boolean merged = false;
+        try {
+            synchronized (saveLock) {
+                if (fileLock == null) {
+                    return;
+                }
+                fileLock.lockShared();
+                try {
+                    merged = mergeSavedChanges();
+                } finally {
+                    fileLock.unlock();
+                }
+            }
+        } finally {
+            if (merged) {
+                notifyChangeListeners();
+            }
+        }
+    }
+
+    /**
+     * adds a recent files listener, which is told on the event dispatch
+     * thread about the changes of the recent files list from now on. the
+     * changes made until it is told are coalesced into one event
+     *
+     * @param listener the recent files listener
+     */
+    public void addRecentFilesListener(RecentFilesListener listener) {
+        listLock.lock();
+        try {
+            notifier.addListener(listener, published);
+        } finally {
+            listLock.unlock();
+        }
+    }
+
+    /**
+     * removes a recent files listener
+     *
+     * @param listener the recent files listener
+     */
+    public void removeRecentFilesListener(RecentFilesListener listener) {
+        notifier.removeListener(listener);
+    }
+
+    /**
+     * adds a change listener
+     *
+     * @param changeListener the change listener
+     */
+    void addChangeListener(ChangeListener changeListener) {
+        changeListeners.add(changeListener);
+    }
+
+    /**
+     * getter for a snapshot of the recent files list
+     *
+     * @return the recent files, from the most recent to the least recent one
+     */
+    RecentFile[] snapshot() {
+        listLock.lock();
+        try {
+            return recentFilesList.toArray();
+        } finally {
+            listLock.unlock();
+        }
+    }
+
+    /**
+     * publishes the snapshot of the recent files list after a change
+     */
+    private void publish() {
+        listLock.lock();
+        try {
+            published = new RecentFilesSnapshot(recentFilesList.toArray(), ++version);
+            if (notifier.hasListeners()) {
+                notifier.published(published, promotedKeys, evictedKeys);
+            }
+            promotedKeys.clear();
+            evictedKeys.clear();
+        } finally {
+            listLock.unlock();
+        }
+    }
+
+    /**
+     * saves the unsaved changes of the recent files list. one thread saves at
+     * a time, and the changes of all the threads which waited for it are saved
+     * at once. changes which could not be saved are kept for the next save.
+     * when the config file is shared, the changes saved by other processes are
+     * merged first
+     *
+     * @throws IOException if the recent files list could not be saved
+     */
+    void save() throws IOException {
+        boolean merged = false;
+        try {
+            synchronized (saveLock) {
+                if (fileLock == null) {
+                    writeChanges();
+                    return;
+                }
+                fileLock.lock();
+                try {
+                    merged = mergeSavedChanges();
+                    writeChanges();
+                } finally {
+                    fileLock.unlock();
+                }
+            }
+        } finally {
+            if (merged) {
+                notifyChangeListeners();
+            }
+        }
+    }
+
+    /**
+     * applies the results of a validation as one change. the recent files
+     * which were changed since they were checked are left as they are
+     *
+     * @param missing the missing files
+     * @param found the existing files
+     * @param removeMissing true to remove the missing files, false to flag
+     * them
+     * @throws IOException if the recent files list could not be saved
+     */
+    void applyValidation(List<RecentFile> missing, List<RecentFile> found, boolean removeMissing) throws IOException {
+        boolean updated = false;
+        int removed = 0;
+        listLock.lock();
+        try {
+            for (RecentFile recentFile : missing) {
+                if (recentFilesList.get(recentFile.getKey()) != recentFile) {
+                    continue;
+                }
+                if (removeMissing) {
+                    delete(recentFile.getKey(), true);
+                    updated = true;
+                    removed++;
+                } else if (!recentFile.isMissing()) {
+                    recentFilesList.replace(recentFile.withMissing(true));
+                    updated = true;
+                }
+            }
+            for (RecentFile recentFile : found) {
+                if (recentFile.isMissing() && recentFilesList.get(recentFile.getKey()) == recentFile) {
+                    recentFilesList.replace(recentFile.withMissing(false));
+                    updated = true;
+                }
+            }
+        } finally {
+            listLock.unlock();
+        }
+        RecentFilesMetrics m = metrics;
+        if (removed > 0 && m != null) {
+            m.missingRemoved(removed);
+        }
+        if (updated) {
+            changed();
+        }
+    }
+
+    /**
+     * saves the changed recent files list and notifies the change listeners.
+     * in write-behind mode the save is handed over to the background writer.
+     * inside a batch, this is put off until the batch ends
+     *
+     * @throws IOException if the recent files list could not be saved
+     */
+    private void changed() throws IOException {
+        // an open batch saves and publishes its changes when it ends
+        listLock.lock();
+        try {
+            if (batchDepth > 0) {
+                batchChanged = true;
+                return;
+            }
+            publish();
+        } finally {
+            listLock.unlock();
+        }
+
+        try {
+            // let the background writer save the changes, or save them on the
+            // calling thread if there is no writer or it was just closed
+            RecentFilesWriter writer = recentFilesWriter;
+            if (writer == null || !writer.schedule()) {
+                save();
+            }
+        } finally {
+            notifyChangeListeners();
+        }
+    }
+
+    /**
+     * notifies the change listeners
+     */
+    private void notifyChangeListeners() {
+        for (ChangeListener changeListener : changeListeners) {
+            changeListener.recentFilesChanged();
+        }
+    }
+
+    /**
+     * writes the unsaved changes of the recent files list. called holding the
+     * save lock, and the config file lock for writing if it is shared
+     *
+     * @throws IOException if the recent files list could not be saved
+     */
+    private void writeChanges() throws IOException {
+        // take the snapshot together with the changes leading to it
+        RecentFile[] snapshot;
+        ArrayList<RecentFileChange> snapshotChanges;
+        final byte[] ranks;
+        listLock.lock();
+        try {
+            if (changes.isEmpty() && !frecencyChanged) {
+                // the changes were already saved by another thread
+                return;
+            }
+            snapshot = recentFilesList.toArray();
+            snapshotChanges = changes;
+            changes = new ArrayList<>();
+            ranks = frecencyChanged && configFile != null ? frecency.encode() : null;
+            frecencyChanged = false;
+        } finally {
+            listLock.unlock();
+        }
+
+        RecentFilesMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        boolean saved = false;
+        try {
+            if (fileLock != null) {
+                // tell the other processes that the config file changes
+                savedGeneration = fileLock.nextGeneration();
+            }
+            long bytes = storage.write(snapshot, snapshotChanges);
+            savedFiles = snapshot;
+            if (ranks != null) {
+                RecentFilesStorage.writeAtomically(frecencyFile(), new RecentFilesStorage.ContentWriter() {
+                    @Override
+                    public void write(OutputStream out) throws IOException {
+                        out.write(ranks);
+                    }
+                });
+                bytes += ranks.length;
+            }
+            saved = true;
+            if (m != null) {
+                m.saved(bytes, System.nanoTime() - start);
+            }
+        } finally {
+            if (!saved) {
+                // put the changes back in front of the newer ones
+                listLock.lock();
+                try {
+                    snapshotChanges.addAll(changes);
+                    changes = snapshotChanges;
+                    frecencyChanged |= ranks != null;
+                } finally {
+                    listLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * merges the changes saved by other processes since the last load or save
+     * into the recent files list and publishes it. called holding the save
+     * lock and the config file lock
+     *
+     * @return true if the config file was changed by another process
+     * @throws IOException if the config file could not be loaded
+     */
+    private boolean mergeSavedChanges() throws IOException {
+        long generation = fileLock.readGeneration();
+        if (generation == savedGeneration) {
+            return false;
+        }
+
+        // load the recent files saved by the other processes
+        RecentFilesMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        RecentFilesList loaded = new RecentFilesList();
+        load(loaded);
+        if (m != null) {
+            m.loaded(loaded.size(), System.nanoTime() - start);
+        }
+        RecentFile[] saved = canonicalKeys ? rekey(loaded.toArray(), new HashMap<String, String>(), false) : loaded.toArray();
+
+        // publish the merged list before the save lock is released, so that a
+        // reload finding nothing new to merge sees it
+        listLock.lock();
+        try {
+            merge(savedFiles, saved);
+            publish();
+        } finally {
+            listLock.unlock();
+        }
+        savedFiles = saved;
+        savedGeneration = generation;
+        return true;
+    }
+
+    /**
+     * puts a recent file at the front of the list, or in frecency ranking
+     * mode at the place of its new rank, and evicts the recent files beyond
+     * the maximum no. called holding the list lock
+     *
+     * @param recentFile the recent file
+     * @param record true to record the changes for the next save
+     */
+    private void put(RecentFile recentFile, boolean record) {
+        RecentFile previous;
+        RecentFileChange change;
+        if (frecency == null) {
+            // put the recent file at the front of the list. if the list
+            // already contains the file then it is promoted with the new
+            // attributes
+            previous = recentFilesList.addFirst(recentFile);
+            change = new RecentFileChange(
+                    previous == null ? RecentFileChange.Type.ADDED : RecentFileChange.Type.PROMOTED,
+                    recentFile);
+        } else {
+            frecencyChanged = true;
+            String key = recentFile.getKey();
+            RecentFile dropped = frecency.access(recentFile, System.currentTimeMillis());
+            if (dropped != null && recentFilesList.remove(dropped.getKey()) != null) {
+                noteEvicted(dropped);
+                if (record) {
+                    changes.add(new RecentFileChange(RecentFileChange.Type.EVICTED, dropped));
+                }
+                RecentFilesMetrics m = metrics;
+                if (m != null) {
+                    m.evicted(1);
+                }
+            }
+            if (dropped != null && dropped.getKey().equals(key)) {
+                // the recent file ranks too low to be tracked
+                return;
+            }
+
+            // a rank only grows, so the recent file is still shown if it was
+            previous = recentFilesList.remove(key);
+            RecentFile last = recentFilesList.getLast();
+            if (recentFilesList.size() >= maxRecords && last != null && frecency.compare(key, last.getKey()) > 0) {
+                // the recent file ranks below all the shown ones
+                return;
+            }
+
+            // put the recent file in front of the next ranked shown file. the
+            // change records the position, as it is not the front
+            RecentFile next = frecency.next(key);
+            if (next != null && recentFilesList.contains(next.getKey())) {
+                recentFilesList.addBefore(recentFile, next.getKey());
+                change = new RecentFileChange(RecentFileChange.Type.INSERTED, recentFile, next);
+            } else {
+                recentFilesList.addLast(recentFile);
+                change = new RecentFileChange(RecentFileChange.Type.INSERTED, recentFile, null);
+            }
+        }
+        if (record) {
+            changes.add(change);
+        }
+        if (previous != null && notifier.hasListeners()) {
+            promotedKeys.add(recentFile.getKey());
+        }
+
+        // evict the least recent files which exceed the max record size
+        evict(record);
+    }
+
+    /**
+     * evicts the least recent files while the list exceeds the maximum no of
+     * recent files or their maximum total size. the most recent file is kept
+     * even if it alone exceeds the maximum size. called holding the list lock
+     *
+     * @param record true to record the changes for the next save
+     * @return the no of evicted recent files
+     */
+    private int evict(boolean record) {
+        int evictions = 0;
+        while (recentFilesList.size() > maxRecords
+                || (maxBytes > 0 && recentFilesList.size() > 1 && recentFilesList.bytes() > maxBytes)) {
+            RecentFile evicted = recentFilesList.removeLast();
+            noteEvicted(evicted);
+            evictions++;
+            if (record) {
+                changes.add(new RecentFileChange(RecentFileChange.Type.EVICTED, evicted));
+            }
+        }
+        RecentFilesMetrics m = metrics;
+        if (evictions > 0 && m != null) {
+            m.evicted(evictions);
+        }
+        return evictions;
+    }
+
+    /**
+     * removes a recent file from the list, and in frecency ranking mode also
+     * its rank, showing the next ranked file instead if it fits into the
+     * maximum total size. called holding the list lock
+     *
+     * @param key the path key of the recent file
+     * @param record true to record the changes for the next save
+     * @return the removed recent file, or null if the list didnt contain it
+     */
+    private RecentFile delete(String key, boolean record) {
+        RecentFile removed = recentFilesList.remove(key);
+        if (frecency != null && frecency.remove(key)) {
+            frecencyChanged = true;
+        }
+        if (removed == null) {
+            return null;
+        }
+        if (record) {
+            changes.add(new RecentFileChange(RecentFileChange.Type.REMOVED, removed));
+        }
+        if (frecency != null) {
+            // show the next ranked file, which is below the last shown one,
+            // if it fits into the maximum total size
+            RecentFile last = recentFilesList.getLast();
+            RecentFile next = frecency.next(last == null ? null : last.getKey());
+            if (next != null && (maxBytes == 0 || last == null
+                    || recentFilesList.bytes() + next.byteSize() <= maxBytes)) {
+                recentFilesList.addLast(next);
+                if (record) {
+                    changes.add(new RecentFileChange(RecentFileChange.Type.INSERTED, next, null));
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * notes an evicted recent file for the recent files listeners. called
+     * holding the list lock
+     *
+     * @param recentFile the evicted recent file
+     */
+    private void noteEvicted(RecentFile recentFile) {
+        if (notifier.hasListeners()) {
+            evictedKeys.add(recentFile.getKey());
+        }
+    }
+
+    /**
+     * shows the top ranked files of the frecency ranks, recording the changes
+     * for the next save. called holding the list lock
+     */
+    private void showTopRanked() {
+        RecentFile[] shown = recentFilesList.toArray();
+        recentFilesList.clear();
+        for (RecentFile recentFile : frecency.top(maxRecords)) {
+            recentFilesList.addLast(recentFile);
+        }
+        for (RecentFile recentFile : shown) {
+            if (!recentFilesList.contains(recentFile.getKey())) {
+                noteEvicted(recentFile);
+                changes.add(new RecentFileChange(RecentFileChange.Type.EVICTED, recentFile));
+            }
+        }
+        // the kept files are reordered too, so every shown file is recorded
+        // in rank order at the end of the list
+        for (RecentFile recentFile : recentFilesList) {
+            changes.add(new RecentFileChange(RecentFileChange.Type.INSERTED, recentFile, null));
+        }
+    }
+
+    /**
+     * lets the search index follow the recent files history, which are the
+     * tracked files in frecency ranking mode and else the recent files list.
+     * called holding the list lock
+     */
+    private void indexHistory() {
+        if (searchIndex == null) {
+            return;
+        }
+        if (frecency != null) {
+            recentFilesList.setSearchIndex(null);
+            frecency.setSearchIndex(searchIndex);
+        } else {
+            recentFilesList.setSearchIndex(searchIndex);
+        }
+    }
+
+    /**
+     * loads the recent files saved by the storage to the end of a recent files
+     * list
+     *
+     * @param recentFilesList the recent files list to be loaded
+     * @throws IOException if the recent files could not be loaded
+     */
+    private void load(RecentFilesList recentFilesList) throws IOException {
+        for (RecentFile recentFile : storage.load(maxRecords)) {
+            if (recentFilesList.size() >= maxRecords) {
+                break;
+            }
+            recentFilesList.addLast(recentFile);
+        }
+    }
+
+    /**
+     * getter for the file of the saved frecency ranks
+     *
+     * @return the frecency file next to the config file
+     */
+    private File frecencyFile() {
+        return new File(configFile.getPath() + ".frecency");
+    }
+
+    /**
+     * gives a recent file the key of the current key mode
+     *
+     * @param recentFile the recent file with its default path key
+     * @return the recent file with the canonical path key if enabled
+     */
+    private RecentFile keyed(RecentFile recentFile) {
+        return canonicalKeys ? recentFile.withKey(PathKeys.canonicalKey(recentFile.getFile())) : recentFile;
+    }
+
+    /**
+     * computes the key of a file in the current key mode
+     *
+     * @param file the file
+     * @return the canonical path key if enabled, else the path key
+     */
+    private String keyOf(File file) {
+        return canonicalKeys ? PathKeys.canonicalKey(file) : PathKeys.key(file);
+    }
+
+    /**
+     * gives recent files the keys of the current key mode, keeping only the
+     * most recent one of the recent files with the same key
+     *
+     * @param recentFiles the recent files, the most recent first
+     * @param keys the new keys by old key. missing keys are computed and added
+     * @param recordRemoved true to record the dropped recent files as removed,
+     * called holding the list lock
+     * @return the rekeyed recent files
+     */
+    private RecentFile[] rekey(RecentFile[] recentFiles, HashMap<String, String> keys, boolean recordRemoved) {
+        RecentFilesList rekeyed = new RecentFilesList();
+        for (RecentFile recentFile : recentFiles) {
+            String key = keys.get(recentFile.getKey());
+            if (key == null) {
+                key = keyOf(recentFile.getFile());
+                keys.put(recentFile.getKey(), key);
+            }
+            if (!rekeyed.addLast(recentFile.withKey(key)) && recordRemoved) {
+                changes.add(new RecentFileChange(RecentFileChange.Type.REMOVED, recentFile));
+            }
+        }
+        return rekeyed.toArray();
+    }
+
+    /**
+     * applies the changes between two saved states of the recent files list to
+     * the recent files list, skipping the recent files with unsaved changes.
+     * the other processes only put recent files at the front of the list or
+     * remove them, so the recent files they changed are the ones in front of
+     * the longest tail of the new state which is in the old order with the old
+     * attributes. called holding the list lock
+     *
+     * @param before the last loaded or saved recent files
+     * @param after the recent files saved by the other processes
+     */
+    private void merge(RecentFile[] before, RecentFile[] after) {
+        // the recent files with unsaved changes keep these changes
+        HashSet<String> unsaved = new HashSet<>();
+        for (RecentFileChange change : changes) {
+            unsaved.add(change.getRecentFile().getKey());
+        }
+
+        HashMap<String, Integer> beforeIndex = new HashMap<>();
+        for (int i = 0; i < before.length; i++) {
+            beforeIndex.put(before[i].getKey(), i);
+        }
+
+        // find the last recent file which was put at the front
+        int changed = -1;
+        int next = before.length;
+        for (int i = after.length - 1; i >= 0; i--) {
+            Integer index = beforeIndex.remove(after[i].getKey());
+            if (index == null || index >= next
+                    || !Arrays.equals(before[index].attributes(), after[i].attributes())) {
+                changed = i;
+                break;
+            }
+            next = index;
+        }
+
+        // remove the recent files which are no longer saved
+        HashSet<String> afterKeys = new HashSet<>();
+        for (int i = 0; i <= changed; i++) {
+            afterKeys.add(after[i].getKey());
+        }
+        for (String key : beforeIndex.keySet()) {
+            if (!afterKeys.contains(key) && !unsaved.contains(key)) {
+                delete(key, false);
+            }
+        }
+
+        // put the changed recent files at the front, the least recent first.
+        // in frecency ranking mode they count as accesses
+        for (int i = changed; i >= 0; i--) {
+            if (!unsaved.contains(after[i].getKey())) {
+                put(after[i], false);
+            }
+        }
+        if (frecency != null) {
+            return;
+        }
+
+        // keep the unsaved recent files in front of the merged ones
+        for (RecentFileChange change : changes) {
+            RecentFile recentFile = recentFilesList.get(change.getRecentFile().getKey());
+            if (recentFile != null && change.getType() != RecentFileChange.Type.EVICTED
+                    && change.getType() != RecentFileChange.Type.REMOVED) {
+                recentFilesList.addFirst(recentFile);
+            }
+        }
+
+        // the other processes evicted the least recent files already, so
+        // the evictions are not recorded for the next save
+        evict(false);
+    }
+
+    /**
+     * stops sharing the config file. called holding the save lock
+     *
+     * @throws IOException if the lock file could not be closed
+     */
+    private void stopSharing() throws IOException {
+        if (fileLock == null) {
+            return;
+        }
+        ConfigFileLock lock = fileLock;
+        ConfigFileWatcher watcher = fileWatcher;
+        fileLock = null;
+        fileWatcher = null;
+        storage.fileLock = null;
+        try {
+            if (watcher != null) {
+                watcher.close();
+            }
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * saves the pending changes of the write-behind mode and stops its
+     * background writer. called holding the writer lock
+     *
+     * @throws IOException if the pending changes could not be saved
+     */
+    private void stopWriter() throws IOException {
+        if (recentFilesWriter != null) {
+            RecentFilesWriter writer = recentFilesWriter;
+            recentFilesWriter = null;
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * the RecentFilesValidator checks on background threads whether the recent
+ * files of a store still exist. the files are checked in parallel batches,
+ * and a file which is not checked within the timeout, for example on a slow
+ * network mount, is left as it is. the results are applied to the store at
+ * once, as one change.
+ * <p>
+ * a check stuck in File.exists on a hung mount cannot be interrupted, so its
+ * thread stays busy. the check threads are capped, and while they are all
+ * busy the files are left unchecked instead of starting more threads. the
+ * validations themselves run one at a time
+ *
+ * @author deepak
+ */
+final class RecentFilesValidator {
+
+    /**
+     * the no of files checked in parallel
+     */
+    private static final int BATCH_SIZE = 16;
+    /**
+     * the maximum no of check threads, leaving room for a few batches of
+     * checks stuck on hung mounts
+     */
+    private static final int MAX_CHECK_THREADS = 4 * BATCH_SIZE;
+    /**
+     * the validator thread, running the validations one at a time. it ends
+     * when it is idle
+     */
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            1, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), daemonThreads("RecentFilesValidator"));
+    /**
+     * the check threads. a thread stuck on a slow file is replaced by a new
+     * one up to the maximum, a check which finds no thread is not queued but
+     * rejected, and the threads end when they are idle
+     */
+    private static final ThreadPoolExecutor CHECKER = new ThreadPoolExecutor(
+            0, MAX_CHECK_THREADS, 5, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), daemonThreads("RecentFilesChecker"));
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * no instances
+     */
+    private RecentFilesValidator() {
+    }
+
+    /**
+     * validates the recent files of a store on background threads
+     *
+     * @param store the store
+     * @param removeMissing true to remove the missing files, false to flag them
+     * @param timeoutMillis the time in milliseconds after which the check of a
+     * file is given up
+     * @return the future no of missing files
+     */
+    static Future<Integer> validate(final RecentFilesStore store, final boolean removeMissing, final long timeoutMillis) {
+        return EXECUTOR.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                RecentFile[] snapshot = store.snapshot();
+                List<RecentFile> missing = new ArrayList<>();
+                List<RecentFile> found = new ArrayList<>();
+                List<Future<Boolean>> checks = new ArrayList<>(BATCH_SIZE);
+                for (int from = 0; from < snapshot.length; from += BATCH_SIZE) {
+                    int to = Math.min(from + BATCH_SIZE, snapshot.length);
+
+                    // check the files of the batch in parallel
+                    checks.clear();
+                    for (int i = from; i < to; i++) {
+                        checks.add(check(snapshot[i]));
+                    }
+
+                    // collect the results of the checks done within the timeout
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                    for (int i = from; i < to; i++) {
+                        Future<Boolean> check = checks.get(i - from);
+                        if (check == null) {
+                            // no check thread was free, leave the file as it is
+                            continue;
+                        }
+                        try {
+                            boolean exists = check.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                            (exists ? found : missing).add(snapshot[i]);
+                        } catch (TimeoutException | ExecutionException ex) {
+                            // the file could not be checked, leave it as it is
+                            check.cancel(true);
+                        }
+                    }
+                }
+                store.applyValidation(missing, found, removeMissing);
+                return missing.size();
+            }
+        });
+    }
+
+    /**
+     * checks whether a recent file exists on a check thread
+     *
+     * @param recentFile the recent file
+     * @return the future check result, true if the file exists, or null if
+     * all the check threads are busy
+     */
+    private static Future<Boolean> check(final RecentFile recentFile) {
+        try {
+            return CHECKER.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return recentFile.getFile().exists();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * creates a factory of named daemon threads
+     *
+     * @param name the thread name
+     * @return the thread factory
+     */
+    private static ThreadFactory daemonThreads(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                // the validator threads must not keep the application alive
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * the RecentFilesWriter saves the recent files list on a background thread.
+ * all the changes made within the write delay are coalesced into one save
+ *
+ * @author deepak
+ */
+class RecentFilesWriter {
+
+    /**
+     * the store whose changes are saved
+     */
+    private final RecentFilesStore store;
+    /**
+     * the write delay in milliseconds
+     */
+    private final long delay;
+    /**
+     * the single writer thread executor
+     */
+    private final ScheduledExecutorService executor;
+    /**
+     * the scheduled save, guarded by this
+     */
+    private ScheduledFuture<?> scheduled = null;
+
+    /**
+     * creates a recent files writer
+     *
+     * @param store the store whose changes are saved
+     * @param delay the write delay in milliseconds
+     */
+    RecentFilesWriter(RecentFilesStore store, long delay) {
+        this.store = store;
+        this.delay = delay;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                // the writer thread must not keep the application alive
+                Thread thread = new Thread(runnable, "RecentFilesWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * schedules a save after the write delay, unless a save is already
+     * scheduled which will then include the new changes
+     *
+     * @return false if the writer is closed, so the caller must save the
+     * changes itself
+     */
+    synchronized boolean schedule() {
+        if (executor.isShutdown()) {
+            return false;
+        }
+        if (scheduled == null) {
+            scheduled = executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        save();
+                    } catch (IOException ex) {
+                        Logger.getLogger(RecentFilesWriter.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * saves the pending changes and waits for the save to complete
+     *
+     * @throws IOException if the changes could not be saved
+     */
+    void flush() throws IOException {
+        Future<Void> future;
+        try {
+            future = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    save();
+                    return null;
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // the writer was closed meanwhile, so save on the calling thread
+            store.save();
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * saves the pending changes and stops the writer thread
+     *
+     * @throws IOException if the changes could not be saved
+     */
+    void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * saves the pending changes. called on the writer thread only
+     *
+     * @throws IOException if the changes could not be saved
+     */
+    private void save() throws IOException {
+        synchronized (this) {
+            // allow a new save to be scheduled
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+        store.save();
+    }
+}
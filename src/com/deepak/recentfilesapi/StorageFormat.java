@@ -0,0 +1,83 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+
+/**
+ * the formats in which the RecentFilesManager can store the recent files list
+ * in its config file
+ *
+ * @author deepak
+ */
+public enum StorageFormat {
+
+    /**
+     * the whole recent files list is rewritten to the config file on every
+     * change
+     */
+    CONFIG_FILE {
+        @Override
+        RecentFilesStorage createStorage(File configFile) {
+            return new ConfigFileStorage(configFile);
+        }
+    },
+    /**
+     * every change is appended as a small record to a journal file next to
+     * the config file. the journal is compacted into the config file on a
+     * background thread once it grows past a size threshold
+     */
+    JOURNAL {
+        @Override
+        RecentFilesStorage createStorage(File configFile) {
+            return new JournalStorage(configFile);
+        }
+    },
+    /**
+     * the whole recent files list is rewritten to the config file on every
+     * change, in a compact binary layout. only the recent files which are
+     * loaded are read from the config file, so loading stays fast for very
+     * long lists
+     */
+    BINARY {
+        @Override
+        RecentFilesStorage createStorage(File configFile) {
+            return new BinaryStorage(configFile);
+        }
+    },
+    /**
+     * the config file is an embedded transactional key-value store of the
+     * recent files. every save appends one checksummed transaction of point
+     * updates, a put for every added or promoted file and a delete for every
+     * removed one, and is forced to disk. the file is rewritten once it holds
+     * many more updates than recent files
+     */
+    KEY_VALUE {
+        @Override
+        RecentFilesStorage createStorage(File configFile) {
+            return new KeyValueStorage(configFile);
+        }
+    };
+
+    /**
+     * creates the storage for the format
+     *
+     * @param configFile the recent files config file
+     * @return the recent files storage
+     */
+    abstract RecentFilesStorage createStorage(File configFile);
+}
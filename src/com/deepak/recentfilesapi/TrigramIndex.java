@@ -0,0 +1,461 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * the TrigramIndex finds recent files by fuzzy matching a query against their
+ * paths. every path is split into its overlapping three character sequences,
+ * the trigrams, and the index maps each trigram to the ids of the paths
+ * containing it. a query is matched by counting for every path how many of the
+ * query trigrams it contains, so a path matches even with a few typos, and the
+ * matching paths are ranked by that share, by whether the query is found as it
+ * is in the file name or the path, and by how recent the file is. only the
+ * paths in the shortest id lists of the query trigrams are looked at, and only
+ * a query shorter than a trigram is looked up in every path.
+ * <p>
+ * the ids are given out in ascending order, so the id lists stay sorted by
+ * only appending to them. a removed path leaves its id in the lists as a dead
+ * id until the index is compacted, once there are more dead ids than live ones
+ *
+ * @author deepak
+ */
+class TrigramIndex {
+
+    /**
+     * the least share of the query trigrams a matching path must contain
+     */
+    private static final double MIN_SIMILARITY = 0.5;
+    /**
+     * the least no of dead ids which trigger a compaction
+     */
+    private static final int MIN_COMPACTION = 1024;
+    /**
+     * the initial capacity of the queue of the best matches, which grows up
+     * to the limit of the search
+     */
+    private static final int MATCHES_CAPACITY = 16;
+    /**
+     * the id lists by trigram
+     */
+    private final HashMap<Long, IdList> postings = new HashMap<>();
+    /**
+     * the ids by path key
+     */
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    /**
+     * the recent files by id, null for a dead id
+     */
+    private RecentFile[] recentFiles = new RecentFile[16];
+    /**
+     * the lower case paths by id
+     */
+    private String[] paths = new String[16];
+    /**
+     * the indexes of the file names in the paths by id
+     */
+    private int[] names = new int[16];
+    /**
+     * the recency stamps by id, the higher the more recent
+     */
+    private long[] stamps = new long[16];
+    /**
+     * the next id to give out
+     */
+    private int nextId = 0;
+    /**
+     * the no of dead ids
+     */
+    private int deadIds = 0;
+    /**
+     * the last stamp of a most recent file
+     */
+    private long recentStamp = 0;
+    /**
+     * the last stamp of a least recent file
+     */
+    private long oldStamp = 0;
+
+    /**
+     * adds a recent file, or updates it if it is indexed already
+     *
+     * @param recentFile the recent file
+     * @param recent true if the recent file is the most recent one, false if
+     * it is the least recent one
+     */
+    void add(RecentFile recentFile, boolean recent) {
+        long stamp = recent ? ++recentStamp : --oldStamp;
+        Integer id = ids.get(recentFile.getKey());
+        if (id != null) {
+            if (paths[id].equals(lowerCasePath(recentFile))) {
+                // the same path, only the entry and its recency change
+                recentFiles[id] = recentFile;
+                stamps[id] = stamp;
+                return;
+            }
+            remove(recentFile.getKey());
+        }
+
+        // index the path under a new id
+        if (nextId == recentFiles.length) {
+            int capacity = recentFiles.length * 2;
+            recentFiles = Arrays.copyOf(recentFiles, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+            names = Arrays.copyOf(names, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+        }
+        int newId = nextId++;
+        String path = lowerCasePath(recentFile);
+        recentFiles[newId] = recentFile;
+        paths[newId] = path;
+        names[newId] = path.lastIndexOf(File.separatorChar) + 1;
+        stamps[newId] = stamp;
+        ids.put(recentFile.getKey(), newId);
+        for (Long trigram : trigrams(path)) {
+            IdList idList = postings.get(trigram);
+            if (idList == null) {
+                idList = new IdList();
+                postings.put(trigram, idList);
+            }
+            idList.add(newId);
+        }
+    }
+
+    /**
+     * updates the entry of an indexed recent file without changing its
+     * recency
+     *
+     * @param recentFile the new entry of the recent file
+     */
+    void replace(RecentFile recentFile) {
+        Integer id = ids.get(recentFile.getKey());
+        if (id == null) {
+            return;
+        }
+        if (!paths[id].equals(lowerCasePath(recentFile))) {
+            long stamp = stamps[id];
+            add(recentFile, true);
+            stamps[ids.get(recentFile.getKey())] = stamp;
+        } else {
+            recentFiles[id] = recentFile;
+        }
+    }
+
+    /**
+     * removes a recent file
+     *
+     * @param key the path key of the recent file
+     */
+    void remove(String key) {
+        Integer id = ids.remove(key);
+        if (id == null) {
+            return;
+        }
+        recentFiles[id] = null;
+        paths[id] = null;
+        deadIds++;
+        if (deadIds >= MIN_COMPACTION && deadIds > ids.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * removes all the recent files
+     */
+    void clear() {
+        postings.clear();
+        ids.clear();
+        Arrays.fill(recentFiles, 0, nextId, null);
+        Arrays.fill(paths, 0, nextId, null);
+        nextId = 0;
+        deadIds = 0;
+    }
+
+    /**
+     * finds the recent files matching a query
+     *
+     * @param query the query
+     * @param limit the maximum no of recent files found
+     * @return the matching recent files, the best match first
+     */
+    List<RecentFile> search(String query, int limit) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // keep the best matches, the worst of them at the head of the queue.
+        // the limit may be far more than the matches, so the queue grows
+        // with them
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, MATCHES_CAPACITY));
+        HashSet<Long> queryTrigrams = trigrams(q);
+        if (queryTrigrams.isEmpty()) {
+            // a query shorter than a trigram is looked up as it is in every
+            // path
+            for (int id = 0; id < nextId; id++) {
+                if (paths[id] != null) {
+                    double score = foundScore(id, q);
+                    if (score > 0) {
+                        offer(best, limit, id, score);
+                    }
+                }
+            }
+        } else {
+            // a matching path is in at least the least count of the id lists
+            // of the query trigrams, so leaving out the least count less one
+            // lists, it is still in one of the others. the longest lists are
+            // left out: only the ids of the shortest lists are looked at, by
+            // merging those ascending lists, and the longest lists are
+            // searched for each of them
+            IdList[] idLists = new IdList[queryTrigrams.size()];
+            int listCount = 0;
+            for (Long trigram : queryTrigrams) {
+                IdList idList = postings.get(trigram);
+                if (idList != null) {
+                    idLists[listCount++] = idList;
+                }
+            }
+            Arrays.sort(idLists, 0, listCount, new Comparator<IdList>() {
+                @Override
+                public int compare(IdList idList1, IdList idList2) {
+                    return Integer.compare(idList1.size, idList2.size);
+                }
+            });
+            int minCount = Math.max(1, (int) Math.ceil(queryTrigrams.size() * MIN_SIMILARITY));
+            int mergeCount = listCount - minCount + 1;
+            int[] positions = new int[listCount];
+            int id = -1;
+            while (mergeCount > 0) {
+                // move the merged lists past the last id, and find the least
+                // id left in them and the no of lists it is in
+                int last = id;
+                int count = 0;
+                id = Integer.MAX_VALUE;
+                for (int j = 0; j < mergeCount; j++) {
+                    IdList idList = idLists[j];
+                    int position = positions[j];
+                    if (position < idList.size && idList.ids[position] == last) {
+                        positions[j] = ++position;
+                    }
+                    if (position < idList.size) {
+                        if (idList.ids[position] < id) {
+                            id = idList.ids[position];
+                            count = 1;
+                        } else if (idList.ids[position] == id) {
+                            count++;
+                        }
+                    }
+                }
+                if (id == Integer.MAX_VALUE) {
+                    break;
+                }
+                if (paths[id] == null) {
+                    continue;
+                }
+                for (int j = mergeCount; j < listCount; j++) {
+                    // the ids are looked for in ascending order, so each
+                    // search starts where the last one ended, and is needed
+                    // only if the list is behind the id
+                    IdList idList = idLists[j];
+                    int position = positions[j];
+                    if (position < idList.size && idList.ids[position] < id) {
+                        position = Arrays.binarySearch(idList.ids, position, idList.size, id);
+                        if (position < 0) {
+                            position = -position - 1;
+                        }
+                    }
+                    if (position < idList.size && idList.ids[position] == id) {
+                        count++;
+                        position++;
+                    }
+                    positions[j] = position;
+                }
+                if (count < minCount) {
+                    continue;
+                }
+                // the query can only be found as it is in a path containing
+                // all the query trigrams
+                double score = count == queryTrigrams.size() ? foundScore(id, q) : 0;
+                offer(best, limit, id, score + (double) count / queryTrigrams.size());
+            }
+        }
+
+        // the best match first
+        RecentFile[] found = new RecentFile[best.size()];
+        for (int i = found.length - 1; i >= 0; i--) {
+            found[i] = recentFiles[best.poll().id];
+        }
+        return Arrays.asList(found);
+    }
+
+    /**
+     * scores where the query is found as it is in a path
+     *
+     * @param id the id of the path
+     * @param q the lower case query
+     * @return 3 if the file name starts with the query, 2 if the file name
+     * contains it, 1 if only the path contains it, else 0
+     */
+    private double foundScore(int id, String q) {
+        String path = paths[id];
+        if (path.startsWith(q, names[id])) {
+            return 3;
+        } else if (path.indexOf(q, names[id]) >= 0) {
+            return 2;
+        } else if (path.indexOf(q) >= 0) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * keeps a match if it is among the best ones so far
+     *
+     * @param best the best matches, the worst of them at the head
+     * @param limit the maximum no of matches kept
+     * @param id the id of the matching path
+     * @param score the score of the match
+     */
+    private void offer(PriorityQueue<Match> best, int limit, int id, double score) {
+        if (best.size() == limit) {
+            // skip a match which is not better than the worst kept one
+            Match worst = best.peek();
+            if (score < worst.score || (score == worst.score && stamps[id] <= worst.stamp)) {
+                return;
+            }
+            best.poll();
+        }
+        best.add(new Match(id, score, stamps[id]));
+    }
+
+    /**
+     * renumbers the live ids, dropping the dead ids from the id lists
+     */
+    private void compact() {
+        RecentFile[] liveFiles = new RecentFile[ids.size()];
+        long[] liveStamps = new long[ids.size()];
+        Integer[] order = ids.values().toArray(new Integer[ids.size()]);
+        Arrays.sort(order);
+        for (int i = 0; i < order.length; i++) {
+            liveFiles[i] = recentFiles[order[i]];
+            liveStamps[i] = stamps[order[i]];
+        }
+        clear();
+        for (int i = 0; i < liveFiles.length; i++) {
+            add(liveFiles[i], true);
+            stamps[i] = liveStamps[i];
+        }
+    }
+
+    /**
+     * getter for the lower case path of a recent file
+     *
+     * @param recentFile the recent file
+     * @return the lower case absolute path
+     */
+    private static String lowerCasePath(RecentFile recentFile) {
+        return recentFile.getFile().getAbsolutePath().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * splits a text into its distinct trigrams
+     *
+     * @param text the text
+     * @return the trigrams, each packed into a long
+     */
+    private static HashSet<Long> trigrams(String text) {
+        HashSet<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    /**
+     * a matching path, ordered by its score and then by its recency
+     */
+    private static class Match implements Comparable<Match> {
+
+        /**
+         * the id of the path
+         */
+        private final int id;
+        /**
+         * the score, the higher the better the match
+         */
+        private final double score;
+        /**
+         * the recency stamp of the path
+         */
+        private final long stamp;
+
+        /**
+         * creates a match
+         *
+         * @param id the id of the path
+         * @param score the score
+         * @param stamp the recency stamp of the path
+         */
+        Match(int id, double score, long stamp) {
+            this.id = id;
+            this.score = score;
+            this.stamp = stamp;
+        }
+
+        @Override
+        public int compareTo(Match match) {
+            int c = Double.compare(score, match.score);
+            return c != 0 ? c : Long.compare(stamp, match.stamp);
+        }
+    }
+
+    /**
+     * a growable list of ascending ids
+     */
+    private static class IdList {
+
+        /**
+         * the ids
+         */
+        private int[] ids = new int[4];
+        /**
+         * the no of ids
+         */
+        private int size = 0;
+
+        /**
+         * appends an id
+         *
+         * @param id the id, greater than all the ids in the list
+         */
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
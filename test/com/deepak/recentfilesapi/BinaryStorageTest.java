@@ -0,0 +1,210 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * tests the binary layout, its text conversion and the checks of corrupt
+ * binary config files
+ *
+ * @author deepak
+ */
+public class BinaryStorageTest extends StorageFormatTestCase {
+
+    @Override
+    StorageFormat format() {
+        return StorageFormat.BINARY;
+    }
+
+    /**
+     * saves a few recent files sharing some strings
+     *
+     * @return the saved recent files
+     * @throws IOException if the config file could not be saved
+     */
+    List<RecentFile> save() throws IOException {
+        RecentFilesStore store = open(10);
+        store.add(new File("/a"), new String[]{"shared", "x"});
+        store.add(new File("/b"), null);
+        store.add(new File("/c"), new String[]{"shared"});
+        List<RecentFile> saved = store.getRecentFiles();
+        store.close();
+        return saved;
+    }
+
+    /**
+     * getter for an int of the config file
+     *
+     * @param position the position of the int
+     * @return the int
+     * @throws IOException if the config file could not be read
+     */
+    int readInt(long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(configFile, "r")) {
+            file.seek(position);
+            return file.readInt();
+        }
+    }
+
+    /**
+     * overwrites an int of the config file
+     *
+     * @param position the position of the int
+     * @param value the new value
+     * @throws IOException if the config file could not be written
+     */
+    void writeInt(long position, int value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(configFile, "rw")) {
+            file.seek(position);
+            file.writeInt(value);
+        }
+    }
+
+    /**
+     * checks that loading the config file fails with a message
+     *
+     * @param message the start of the message
+     */
+    void assertLoadFails(String message) {
+        try {
+            open(10).close();
+            fail("the config file was loaded");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith(message));
+        }
+    }
+
+    /**
+     * the saved config file has the binary header and stores equal strings
+     * once
+     */
+    @Test
+    public void savesTheBinaryLayout() throws IOException {
+        save();
+
+        assertEquals(BinaryStorage.MAGIC, readInt(0));
+        assertEquals(BinaryStorage.VERSION, readInt(4));
+        assertEquals(3, readInt(8));
+        // "/c", "shared", "/b", "/a" and "x"
+        assertEquals(5, readInt(12));
+    }
+
+    /**
+     * a text config file is loaded and converted to the binary layout
+     */
+    @Test
+    public void convertsATextConfigFile() throws IOException {
+        RecentFile[] snapshot = {
+            new RecentFile(new File("/a"), new String[]{"x"}),
+            new RecentFile(new File("/b"), null)
+        };
+        new ConfigFileStorage(configFile).writeSnapshot(snapshot);
+
+        List<RecentFile> loaded = reload(10);
+        assertSameRecentFiles(Arrays.asList(snapshot), loaded);
+        assertEquals(BinaryStorage.MAGIC, readInt(0));
+        assertSameRecentFiles(loaded, reload(10));
+    }
+
+    /**
+     * a binary config file of another version is not loaded
+     */
+    @Test
+    public void reportsAnUnsupportedVersion() throws IOException {
+        save();
+        writeInt(4, BinaryStorage.VERSION + 1);
+
+        assertLoadFails("Unsupported recent files config version");
+    }
+
+    /**
+     * an entry count past the end of the config file is reported as corrupt
+     */
+    @Test
+    public void reportsAnInvalidEntryCount() throws IOException {
+        save();
+        writeInt(8, Integer.MAX_VALUE);
+
+        assertLoadFails("Corrupt recent files config file");
+    }
+
+    /**
+     * an attribute count past the end of the config file is reported as
+     * corrupt, rather than allocated
+     */
+    @Test
+    public void reportsAnInvalidAttributeCount() throws IOException {
+        save();
+        writeInt(readInt(16) + 4, Integer.MAX_VALUE);
+
+        assertLoadFails("Corrupt recent files config file");
+    }
+
+    /**
+     * a string length past the end of the config file is reported as corrupt
+     */
+    @Test
+    public void reportsAnInvalidStringLength() throws IOException {
+        save();
+        writeInt(readInt(16 + 4 * readInt(8)), Integer.MAX_VALUE);
+
+        assertLoadFails("Corrupt recent files config file");
+    }
+
+    /**
+     * a config file with any int overwritten, or cut off anywhere, is either
+     * loaded or reported as corrupt, but never fails otherwise
+     */
+    @Test
+    public void loadsOrReportsEveryDamagedConfigFile() throws IOException {
+        save();
+        byte[] saved = Files.readAllBytes(configFile.toPath());
+        int[] values = {-1, 0, 1, 4, 16, 255, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        for (int position = 0; position + 4 <= saved.length; position += 4) {
+            for (int value : values) {
+                Files.write(configFile.toPath(), saved);
+                writeInt(position, value);
+                loadOrReport();
+            }
+        }
+        for (int length = 0; length < saved.length; length++) {
+            Files.write(configFile.toPath(), Arrays.copyOf(saved, length));
+            loadOrReport();
+        }
+    }
+
+    /**
+     * loads the config file, accepting an IOException
+     */
+    void loadOrReport() {
+        try {
+            open(10).close();
+        } catch (IOException ex) {
+            // a damaged config file may be reported
+        }
+    }
+}
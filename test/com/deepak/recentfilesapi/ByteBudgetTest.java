@@ -0,0 +1,179 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * tests the eviction of the least recent files beyond the maximum total size
+ *
+ * @author deepak
+ */
+public class ByteBudgetTest {
+
+    /**
+     * the folder of the config files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * adds a file of a size, made up by its attribute
+     *
+     * @param store the store
+     * @param path the path of the file
+     * @param size the size of the file
+     * @throws IOException if the store could not be saved
+     */
+    static void add(RecentFilesStore store, String path, int size) throws IOException {
+        char[] attribute = new char[size - path.length() - 1];
+        Arrays.fill(attribute, 'x');
+        store.add(new File(path), new String[]{new String(attribute)});
+    }
+
+    /**
+     * getter for the total size of the recent files of a store
+     *
+     * @param store the store
+     * @return the total size
+     */
+    static long bytes(RecentFilesStore store) {
+        long bytes = 0;
+        for (RecentFile recentFile : store.getRecentFiles()) {
+            bytes += recentFile.byteSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * the least recent files are evicted until the total size fits
+     */
+    @Test
+    public void evictsTheLeastRecentFilesBeyondTheBudget() throws IOException {
+        RecentFilesStore store = new RecentFilesStore(RecentFilesStorage.inMemory(), 100);
+        store.setMaxBytes(350);
+        for (int i = 0; i < 10; i++) {
+            add(store, "/file" + i, 100);
+        }
+
+        assertEquals(Arrays.asList("/file9", "/file8", "/file7"), RecentFilesListTest.paths(store.getRecentFiles()));
+        assertEquals(300, bytes(store));
+        store.close();
+    }
+
+    /**
+     * a lower budget evicts right away, and the most recent file is kept even
+     * if it alone exceeds the budget
+     */
+    @Test
+    public void keepsTheMostRecentFileEvenIfItExceedsTheBudget() throws IOException {
+        RecentFilesStore store = new RecentFilesStore(RecentFilesStorage.inMemory(), 100);
+        add(store, "/small", 50);
+        add(store, "/large", 500);
+        store.setMaxBytes(200);
+
+        assertEquals(Arrays.asList("/large"), RecentFilesListTest.paths(store.getRecentFiles()));
+        add(store, "/small", 50);
+        assertEquals(Arrays.asList("/small"), RecentFilesListTest.paths(store.getRecentFiles()));
+        store.close();
+    }
+
+    /**
+     * in frecency ranking mode, a removed file is backfilled with the next
+     * ranked file only if it fits into the budget
+     */
+    @Test
+    public void frecencyBackfillKeepsTheBudget() throws IOException {
+        RecentFilesStore store = new RecentFilesStore(
+                new File(folder.getRoot(), "frecency.config").getPath(), 3, StorageFormat.CONFIG_FILE);
+        store.setFrecencyRanking(10, 24 * 60 * 60 * 1000L);
+        store.setMaxBytes(1100);
+        for (int i = 0; i < 3; i++) {
+            add(store, "/s", 50);
+        }
+        add(store, "/a", 1000);
+        add(store, "/a", 1000);
+        add(store, "/b", 1000);
+        assertEquals(Arrays.asList("/s", "/a"), RecentFilesListTest.paths(store.getRecentFiles()));
+
+        // b is ranked next, but doesnt fit next to a
+        store.remove(new File("/s"));
+        assertEquals(Arrays.asList("/a"), RecentFilesListTest.paths(store.getRecentFiles()));
+        assertTrue(bytes(store) <= 1100);
+        store.close();
+    }
+
+    /**
+     * the files saved by another process are merged within the budget, and
+     * the files evicted by the merge are told as evicted
+     */
+    @Test
+    public void sharedMergeKeepsTheBudget() throws IOException, InterruptedException, InvocationTargetException {
+        File configFile = new File(folder.getRoot(), "shared.config");
+        RecentFilesStore first = SharedConfigFileTest.openShared(configFile, StorageFormat.CONFIG_FILE, 10);
+        first.setMaxBytes(250);
+        RecentFilesStore second = SharedConfigFileTest.openShared(configFile, StorageFormat.CONFIG_FILE, 10);
+        add(first, "/a", 100);
+        add(first, "/b", 100);
+        final List<RecentFileChange> changes = Collections.synchronizedList(new ArrayList<RecentFileChange>());
+        first.addRecentFilesListener(new RecentFilesListener() {
+            @Override
+            public void recentFilesChanged(RecentFilesEvent event) {
+                changes.addAll(event.getChanges());
+            }
+        });
+        // wait for the listener to be told about the current list
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        changes.clear();
+
+        second.reload();
+        add(second, "/c", 100);
+        first.reload();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+
+        assertEquals(Arrays.asList("/c", "/b"), RecentFilesListTest.paths(first.getRecentFiles()));
+        List<String> evicted = new ArrayList<>();
+        for (RecentFileChange change : changes) {
+            if (change.getType() == RecentFileChange.Type.EVICTED) {
+                evicted.add(change.getRecentFile().getFile().getPath());
+            }
+        }
+        assertEquals(Arrays.asList("/a"), evicted);
+        first.close();
+        second.close();
+    }
+}
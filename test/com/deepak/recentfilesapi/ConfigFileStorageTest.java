@@ -0,0 +1,112 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * tests the v2 text config file and its v0.1 migration
+ *
+ * @author deepak
+ */
+public class ConfigFileStorageTest extends StorageFormatTestCase {
+
+    @Override
+    StorageFormat format() {
+        return StorageFormat.CONFIG_FILE;
+    }
+
+    /**
+     * writes the config file
+     *
+     * @param bytes the contents of the config file
+     * @throws IOException if the config file could not be written
+     */
+    void writeConfigFile(byte[] bytes) throws IOException {
+        try (OutputStream out = new FileOutputStream(configFile)) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * the saved config file is a v2 config file of one record per line
+     */
+    @Test
+    public void savesAVersion2ConfigFile() throws IOException {
+        RecentFilesStore store = open(10);
+        store.add(new File("/a"), new String[]{"x"});
+        store.add(new File("/b"), null);
+        store.close();
+
+        List<String> lines = Files.readAllLines(configFile.toPath(), RecentFilesCodec.UTF8);
+        assertEquals(Arrays.asList(ConfigFileStorage.V2_HEADER, "/b", "/a\tx"), lines);
+    }
+
+    /**
+     * a last record without its line end is cut off, the records before it
+     * are loaded
+     */
+    @Test
+    public void loadsTheRecordsBeforeATornRecord() throws IOException {
+        writeConfigFile((ConfigFileStorage.V2_HEADER + "\n/a\tx\n/b\ty").getBytes(RecentFilesCodec.UTF8));
+
+        List<RecentFile> loaded = reload(10);
+        assertEquals(Arrays.asList("/a"), RecentFilesListTest.paths(loaded));
+        assertArrayEquals(new String[]{"x"}, loaded.get(0).getAttributes());
+    }
+
+    /**
+     * a config file without the v2 header is read as a v0.1 properties file,
+     * which leniently gives no recent files for garbage
+     */
+    @Test
+    public void loadsGarbageAsAnEmptyVersion01ConfigFile() throws IOException {
+        writeConfigFile(new byte[]{0, 1, (byte) 0xff, ' ', 'x', '\n', '\n'});
+
+        assertTrue(reload(10).isEmpty());
+        // the config file is converted, so it loads as a v2 config file now
+        assertEquals(Arrays.asList(ConfigFileStorage.V2_HEADER),
+                Files.readAllLines(configFile.toPath(), RecentFilesCodec.UTF8));
+    }
+
+    /**
+     * a v0.1 config file with a malformed unicode escape is reported as a
+     * corrupt config file
+     */
+    @Test
+    public void reportsAMalformedVersion01ConfigFile() throws IOException {
+        writeConfigFile("00=\\uZZ\n".getBytes(RecentFilesCodec.UTF8));
+
+        try {
+            open(10);
+            fail("a malformed config file was loaded");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Corrupt recent files config file"));
+        }
+    }
+}
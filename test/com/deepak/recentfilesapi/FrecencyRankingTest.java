@@ -0,0 +1,157 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * tests the frecency ranking mode, and that every storage format reloads
+ * the ranked order
+ *
+ * @author deepak
+ */
+public class FrecencyRankingTest {
+
+    /**
+     * a half life long enough for the accesses of a test to weigh the same
+     */
+    private static final long HALF_LIFE = 24 * 60 * 60 * 1000L;
+    /**
+     * the folder of the config files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * opens a store of three recent files in frecency ranking mode
+     *
+     * @param storageFormat the storage format
+     * @return the store
+     * @throws IOException if the store could not be loaded
+     */
+    RecentFilesStore open(StorageFormat storageFormat) throws IOException {
+        RecentFilesStore store = new RecentFilesStore(
+                new File(folder.getRoot(), storageFormat + ".config").getPath(), 3, storageFormat);
+        store.setFrecencyRanking(10, HALF_LIFE);
+        return store;
+    }
+
+    /**
+     * adds a file a no of times
+     *
+     * @param store the store
+     * @param path the path of the file
+     * @param times the no of adds
+     * @throws IOException if the store could not be saved
+     */
+    static void add(RecentFilesStore store, String path, int times) throws IOException {
+        for (int i = 0; i < times; i++) {
+            store.add(new File(path), null);
+        }
+    }
+
+    /**
+     * adds x five times, y three times, z twice and w once, with w added
+     * between the adds of z
+     *
+     * @param store the store
+     * @throws IOException if the store could not be saved
+     */
+    static void addScenario(RecentFilesStore store) throws IOException {
+        add(store, "/x", 5);
+        add(store, "/y", 3);
+        add(store, "/z", 1);
+        add(store, "/w", 1);
+        add(store, "/z", 1);
+    }
+
+    /**
+     * the most often added files are shown, not the last added ones
+     */
+    @Test
+    public void ranksTheFilesByFrequency() throws IOException {
+        RecentFilesStore store = open(StorageFormat.CONFIG_FILE);
+        addScenario(store);
+
+        assertEquals(Arrays.asList("/x", "/y", "/z"), RecentFilesListTest.paths(store.getRecentFiles()));
+        store.close();
+    }
+
+    /**
+     * a file which dropped out of the list comes back with its earlier adds
+     */
+    @Test
+    public void droppedFileComesBackWithItsEarlierAdds() throws IOException {
+        RecentFilesStore store = open(StorageFormat.CONFIG_FILE);
+        addScenario(store);
+        // w has four adds then, more than y
+        add(store, "/w", 3);
+
+        assertEquals(Arrays.asList("/x", "/w", "/y"), RecentFilesListTest.paths(store.getRecentFiles()));
+        store.close();
+    }
+
+    /**
+     * every storage format reloads the ranked order, with and without the
+     * frecency ranking mode
+     */
+    @Test
+    public void everyStorageFormatReloadsTheRankedOrder() throws IOException {
+        for (StorageFormat storageFormat : StorageFormat.values()) {
+            RecentFilesStore store = open(storageFormat);
+            addScenario(store);
+            List<String> ranked = RecentFilesListTest.paths(store.getRecentFiles());
+            store.close();
+
+            store = new RecentFilesStore(
+                    new File(folder.getRoot(), storageFormat + ".config").getPath(), 3, storageFormat);
+            assertEquals(storageFormat.toString(), ranked, RecentFilesListTest.paths(store.getRecentFiles()));
+            store.close();
+
+            store = open(storageFormat);
+            assertEquals(storageFormat.toString(), ranked, RecentFilesListTest.paths(store.getRecentFiles()));
+            // the saved ranks are used, so w has four adds then, more than y
+            add(store, "/w", 3);
+            assertEquals(storageFormat.toString(), Arrays.asList("/x", "/w", "/y"),
+                    RecentFilesListTest.paths(store.getRecentFiles()));
+            store.close();
+        }
+    }
+
+    /**
+     * disabling the frecency ranking mode keeps the order, and adds put the
+     * files at the front again
+     */
+    @Test
+    public void disablingKeepsTheOrder() throws IOException {
+        RecentFilesStore store = open(StorageFormat.CONFIG_FILE);
+        addScenario(store);
+        store.setFrecencyRanking(0, HALF_LIFE);
+        assertEquals(Arrays.asList("/x", "/y", "/z"), RecentFilesListTest.paths(store.getRecentFiles()));
+
+        add(store, "/w", 1);
+        assertEquals(Arrays.asList("/w", "/x", "/y"), RecentFilesListTest.paths(store.getRecentFiles()));
+        store.close();
+    }
+}
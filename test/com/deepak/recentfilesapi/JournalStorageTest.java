@@ -0,0 +1,162 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * tests the replay, the crash safety and the compaction of the journal
+ *
+ * @author deepak
+ */
+public class JournalStorageTest extends StorageFormatTestCase {
+
+    @Override
+    StorageFormat format() {
+        return StorageFormat.JOURNAL;
+    }
+
+    /**
+     * getter for the journal file of the config file
+     *
+     * @return the journal file
+     */
+    File journalFile() {
+        return new File(configFile.getPath() + ".journal");
+    }
+
+    /**
+     * appends to the journal file
+     *
+     * @param records the records to be appended
+     * @throws IOException if the journal file could not be written
+     */
+    void appendToJournal(String records) throws IOException {
+        try (OutputStream out = new FileOutputStream(journalFile(), true)) {
+            out.write(records.getBytes(RecentFilesCodec.UTF8));
+        }
+    }
+
+    /**
+     * every change is appended to the journal as one record
+     */
+    @Test
+    public void appendsOneRecordPerChange() throws IOException {
+        RecentFilesStore store = open(10);
+        store.add(new File("/a"), new String[]{"x"});
+        store.add(new File("/b"), null);
+        store.remove(new File("/a"));
+        store.close();
+
+        assertEquals(Arrays.asList("+\t/a\tx", "+\t/b", "-\t/a"),
+                Files.readAllLines(journalFile().toPath(), RecentFilesCodec.UTF8));
+    }
+
+    /**
+     * a record torn by a crash is cut off, so that the next record is not
+     * appended to it
+     */
+    @Test
+    public void cutsOffATornRecord() throws IOException {
+        RecentFilesStore store = open(10);
+        store.add(new File("/a"), null);
+        store.add(new File("/b"), null);
+        store.close();
+        long length = journalFile().length();
+        appendToJournal("+\t/torn");
+
+        assertEquals(Arrays.asList("/b", "/a"), RecentFilesListTest.paths(reload(10)));
+        assertEquals(length, journalFile().length());
+
+        store = open(10);
+        store.add(new File("/c"), null);
+        store.close();
+        assertEquals(Arrays.asList("/c", "/b", "/a"), RecentFilesListTest.paths(reload(10)));
+    }
+
+    /**
+     * records of an unknown type and incomplete records are skipped
+     */
+    @Test
+    public void skipsUnknownRecords() throws IOException {
+        RecentFilesStore store = open(10);
+        store.add(new File("/a"), null);
+        store.close();
+        appendToJournal("?\t/unknown\n\n+\n<\t/a\n+\t/b\n");
+
+        assertEquals(Arrays.asList("/b", "/a"), RecentFilesListTest.paths(reload(10)));
+    }
+
+    /**
+     * a crash after the snapshot was rewritten but before the journal was
+     * trimmed replays the covered records again, which loads the same list
+     */
+    @Test
+    public void replayingTheCoveredRecordsAgainLoadsTheSameList() throws IOException {
+        RecentFilesStore store = open(8);
+        Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            File file = new File("/file" + random.nextInt(20));
+            if (random.nextInt(4) == 0) {
+                store.remove(file);
+            } else {
+                store.add(file, new String[]{"a" + i});
+            }
+        }
+        List<RecentFile> saved = store.getRecentFiles();
+        store.close();
+
+        // the snapshot of the compaction, with the journal left untrimmed
+        new ConfigFileStorage(configFile).writeSnapshot(saved.toArray(new RecentFile[0]));
+
+        assertSameRecentFiles(saved, reload(8));
+    }
+
+    /**
+     * a journal past the compaction threshold is folded into the snapshot,
+     * keeping the records appended during a running compaction
+     */
+    @Test
+    public void compactsTheJournalIntoTheSnapshot() throws IOException {
+        RecentFilesStore store = new RecentFilesStore(new JournalStorage(configFile, 256), 10);
+        for (int i = 0; i < 100; i++) {
+            store.add(new File("/folder/file" + i), new String[]{"attribute"});
+        }
+        store.close();
+        assertTrue(configFile.length() > 0);
+
+        // the journal left by a compaction still running at the last save is
+        // compacted by the next save past the threshold, and close waits for it
+        store = new RecentFilesStore(new JournalStorage(configFile, 1), 10);
+        store.add(new File("/folder/file100"), null);
+        List<RecentFile> saved = store.getRecentFiles();
+        store.close();
+
+        assertEquals(0, journalFile().length());
+        assertSameRecentFiles(saved, reload(10));
+    }
+}
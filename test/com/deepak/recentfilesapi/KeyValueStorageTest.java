@@ -0,0 +1,147 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * tests the transactions of the key-value config file and the handling of
+ * torn and damaged transactions
+ *
+ * @author deepak
+ */
+public class KeyValueStorageTest extends StorageFormatTestCase {
+
+    @Override
+    StorageFormat format() {
+        return StorageFormat.KEY_VALUE;
+    }
+
+    /**
+     * saves two recent files and appends the transaction of a third one
+     *
+     * @return the length of the config file before the last transaction
+     * @throws IOException if the config file could not be saved
+     */
+    long saveWithLastTransaction() throws IOException {
+        RecentFilesStore store = open(10);
+        store.add(new File("/a"), new String[]{"x"});
+        store.add(new File("/b"), null);
+        store.flush();
+        long length = configFile.length();
+        store.add(new File("/c"), new String[]{"y"});
+        store.close();
+        return length;
+    }
+
+    /**
+     * a save appends a transaction of the changes, not the whole list
+     */
+    @Test
+    public void appendsATransactionPerSave() throws IOException {
+        RecentFilesStore store = open(100);
+        for (int i = 0; i < 50; i++) {
+            store.add(new File("/folder/file" + i), new String[]{"attribute"});
+        }
+        long length = configFile.length();
+        store.add(new File("/folder/file0"), null);
+        store.close();
+
+        long transaction = configFile.length() - length;
+        assertTrue("transaction of " + transaction + " bytes", transaction > 0 && transaction < 100);
+    }
+
+    /**
+     * a transaction torn by a crash is dropped as a whole and cut off
+     */
+    @Test
+    public void dropsATornTransaction() throws IOException {
+        long length = saveWithLastTransaction();
+        try (RandomAccessFile file = new RandomAccessFile(configFile, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        assertEquals(Arrays.asList("/b", "/a"), RecentFilesListTest.paths(reload(10)));
+        assertEquals(length, configFile.length());
+
+        // the next transaction is appended after the valid ones
+        RecentFilesStore store = open(10);
+        store.add(new File("/d"), null);
+        store.close();
+        assertEquals(Arrays.asList("/d", "/b", "/a"), RecentFilesListTest.paths(reload(10)));
+    }
+
+    /**
+     * a transaction failing its checksum is dropped as a whole
+     */
+    @Test
+    public void dropsATransactionFailingItsChecksum() throws IOException {
+        saveWithLastTransaction();
+        try (RandomAccessFile file = new RandomAccessFile(configFile, "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xff);
+        }
+
+        List<RecentFile> loaded = reload(10);
+        assertEquals(Arrays.asList("/b", "/a"), RecentFilesListTest.paths(loaded));
+    }
+
+    /**
+     * a key-value config file of another version is not loaded
+     */
+    @Test
+    public void reportsAnUnsupportedVersion() throws IOException {
+        saveWithLastTransaction();
+        try (RandomAccessFile file = new RandomAccessFile(configFile, "rw")) {
+            file.seek(4);
+            file.writeInt(KeyValueStorage.VERSION + 1);
+        }
+
+        try {
+            open(10);
+            fail("the config file was loaded");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Unsupported recent files config version"));
+        }
+    }
+
+    /**
+     * a file holding many more operations than recent files is rewritten
+     */
+    @Test
+    public void rewritesTheFileOfManyOperations() throws IOException {
+        RecentFilesStore store = open(10);
+        for (int i = 0; i < 1100; i++) {
+            store.add(new File("/file" + i % 3), null);
+        }
+        List<RecentFile> saved = store.getRecentFiles();
+        store.close();
+
+        assertTrue("file of " + configFile.length() + " bytes", configFile.length() < 1024 * 16);
+        assertSameRecentFiles(saved, reload(10));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * tests the hashed LRU list of the recent files
+ *
+ * @author deepak
+ */
+public class RecentFilesListTest {
+
+    /**
+     * creates a recent file without attributes
+     *
+     * @param path the path
+     * @return the recent file
+     */
+    static RecentFile recentFile(String path) {
+        return new RecentFile(new File(path), null);
+    }
+
+    /**
+     * getter for the paths of the recent files, from the most recent one
+     *
+     * @param recentFiles the recent files
+     * @return the paths
+     */
+    static List<String> paths(Iterable<RecentFile> recentFiles) {
+        List<String> paths = new ArrayList<>();
+        for (RecentFile recentFile : recentFiles) {
+            paths.add(recentFile.getFile().getPath());
+        }
+        return paths;
+    }
+
+    /**
+     * a file added again moves to the front and replaces its entry
+     */
+    @Test
+    public void addFirstPromotesAnExistingFile() {
+        RecentFilesList list = new RecentFilesList();
+        list.addFirst(recentFile("/a"));
+        list.addFirst(recentFile("/b"));
+        list.addFirst(recentFile("/c"));
+        RecentFile previous = list.addFirst(new RecentFile(new File("/a"), new String[]{"x"}));
+
+        assertEquals(Arrays.asList("/a", "/c", "/b"), paths(list));
+        assertEquals(3, list.size());
+        assertNull(previous.getAttributes());
+        assertArrayEquals(new String[]{"x"}, list.get(recentFile("/a").getKey()).getAttributes());
+    }
+
+    /**
+     * a file is put in front of another one, or moved there
+     */
+    @Test
+    public void addBeforeInsertsInFrontOfAFile() {
+        RecentFilesList list = new RecentFilesList();
+        list.addLast(recentFile("/a"));
+        list.addLast(recentFile("/b"));
+        list.addLast(recentFile("/c"));
+        list.addBefore(recentFile("/d"), recentFile("/b").getKey());
+        list.addBefore(recentFile("/c"), recentFile("/a").getKey());
+
+        assertEquals(Arrays.asList("/c", "/a", "/d", "/b"), paths(list));
+        assertEquals("/b", list.getLast().getFile().getPath());
+    }
+
+    /**
+     * a file is appended only if it is not in the list
+     */
+    @Test
+    public void addLastKeepsAnExistingFile() {
+        RecentFilesList list = new RecentFilesList();
+        assertTrue(list.addLast(recentFile("/a")));
+        assertTrue(list.addLast(recentFile("/b")));
+        assertFalse(list.addLast(recentFile("/a")));
+
+        assertEquals(Arrays.asList("/a", "/b"), paths(list));
+    }
+
+    /**
+     * the removes unlink the files from any position
+     */
+    @Test
+    public void removeUnlinksTheFile() {
+        RecentFilesList list = new RecentFilesList();
+        for (String path : new String[]{"/a", "/b", "/c", "/d"}) {
+            list.addLast(recentFile(path));
+        }
+        assertEquals("/b", list.remove(recentFile("/b").getKey()).getFile().getPath());
+        assertNull(list.remove(recentFile("/b").getKey()));
+        assertEquals("/d", list.removeLast().getFile().getPath());
+        assertEquals("/a", list.remove(recentFile("/a").getKey()).getFile().getPath());
+
+        assertEquals(Arrays.asList("/c"), paths(list));
+        assertFalse(list.contains(recentFile("/a").getKey()));
+        assertTrue(list.contains(recentFile("/c").getKey()));
+    }
+
+    /**
+     * the order, the size and the total size follow a plain list model
+     * through random changes
+     */
+    @Test
+    public void randomChangesMatchAListModel() {
+        RecentFilesList list = new RecentFilesList();
+        LinkedList<RecentFile> model = new LinkedList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            RecentFile recentFile = random.nextBoolean()
+                    ? recentFile("/file" + random.nextInt(50))
+                    : new RecentFile(new File("/file" + random.nextInt(50)), new String[]{"attribute" + i});
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    list.addFirst(recentFile);
+                    model.remove(recentFile);
+                    model.addFirst(recentFile);
+                    break;
+                case 2:
+                    list.remove(recentFile.getKey());
+                    model.remove(recentFile);
+                    break;
+                default:
+                    if (!model.contains(recentFile)) {
+                        list.addLast(recentFile);
+                        model.addLast(recentFile);
+                    }
+            }
+        }
+
+        assertEquals(paths(model), paths(list));
+        long bytes = 0;
+        for (RecentFile recentFile : model) {
+            bytes += recentFile.byteSize();
+            assertArrayEquals(recentFile.getAttributes(), list.get(recentFile.getKey()).getAttributes());
+        }
+        assertEquals(model.size(), list.size());
+        assertEquals(bytes, list.bytes());
+    }
+
+    /**
+     * a cleared list is empty and can be filled again
+     */
+    @Test
+    public void clearEmptiesTheList() {
+        RecentFilesList list = new RecentFilesList();
+        list.addFirst(recentFile("/a"));
+        list.clear();
+
+        assertEquals(0, list.size());
+        assertEquals(0, list.bytes());
+        assertNull(list.getLast());
+        assertEquals(0, list.toArray().length);
+        list.addFirst(recentFile("/a"));
+        assertEquals(Arrays.asList("/a"), paths(list));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JMenu;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * tests the asynchronous open of the recent files manager
+ *
+ * @author deepak
+ */
+public class RecentFilesManagerTest {
+
+    /**
+     * the recent file handler of the tests, which handles nothing
+     */
+    static final RecentFileHandler HANDLER = new RecentFileHandler() {
+        @Override
+        public boolean onRecentFileSelection(File file, String[] attributes) {
+            return false;
+        }
+    };
+
+    /**
+     * a storage whose load waits until it is released, and then loads a
+     * saved list or fails
+     */
+    static class SlowStorage extends RecentFilesStorage {
+
+        /**
+         * released to let the load go on
+         */
+        final CountDownLatch release = new CountDownLatch(1);
+        /**
+         * the failure of the load, or null to load an empty list
+         */
+        final IOException failure;
+
+        /**
+         * creates a slow storage
+         *
+         * @param failure the failure of the load, or null
+         */
+        SlowStorage(IOException failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        protected List<RecentFile> load(int maxRecords) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected long write(RecentFile[] snapshot, List<RecentFileChange> changes) {
+            return 0;
+        }
+    }
+
+    /**
+     * the files added while loading are added once loaded, a file added twice
+     * only once at its last place
+     */
+    @Test
+    public void addsTheQueuedFilesOnceLoaded() throws Exception {
+        SlowStorage storage = new SlowStorage(null);
+        RecentFilesManager manager = RecentFilesManager.openAsync(HANDLER, new JMenu(), storage, 10, null);
+        manager.add(new File("/a"), null);
+        manager.add(new File("/b"), null);
+        manager.add(new File("/a"), new String[]{"x"});
+        assertFalse(manager.getLoading().isDone());
+
+        storage.release.countDown();
+        manager.getLoading().get();
+        List<RecentFile> recentFiles = manager.getStore().getRecentFiles();
+        assertEquals(Arrays.asList("/a", "/b"), RecentFilesListTest.paths(recentFiles));
+        assertEquals(Arrays.asList("x"), Arrays.asList(recentFiles.get(0).getAttributes()));
+    }
+
+    /**
+     * a failed load fails the loading future and the later adds
+     */
+    @Test
+    public void reportsAFailedLoad() throws Exception {
+        SlowStorage storage = new SlowStorage(new IOException("broken"));
+        RecentFilesManager manager = RecentFilesManager.openAsync(HANDLER, new JMenu(), storage, 10, null);
+        manager.add(new File("/a"), null);
+        storage.release.countDown();
+
+        try {
+            manager.getLoading().get();
+            fail("the load did not fail");
+        } catch (ExecutionException ex) {
+            assertEquals("broken", ex.getCause().getMessage());
+        }
+        try {
+            manager.add(new File("/b"), null);
+            fail("a file was added without a store");
+        } catch (IOException ex) {
+            assertEquals("broken", ex.getCause().getMessage());
+        }
+    }
+}
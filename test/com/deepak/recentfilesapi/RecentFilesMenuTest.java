@@ -0,0 +1,157 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.SwingUtilities;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * tests the incremental updates of the recent files menu
+ *
+ * @author deepak
+ */
+public class RecentFilesMenuTest {
+
+    /**
+     * getter for the paths of the recent files shown by the JMenuItems
+     *
+     * @param jmenu the menu
+     * @return the paths
+     */
+    static List<String> shownPaths(JMenu jmenu) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < jmenu.getItemCount(); i++) {
+            JMenuItem jMenuItem = jmenu.getItem(i);
+            RecentFile recentFile = (RecentFile) jMenuItem.getClientProperty(RecentFilesMenu.RECENT_FILE);
+            paths.add(recentFile.getFile().getPath());
+        }
+        return paths;
+    }
+
+    /**
+     * the menu shows the list after every update through random changes
+     */
+    @Test
+    public void showsTheListAfterRandomChanges() throws InterruptedException, InvocationTargetException {
+        final Throwable[] failure = new Throwable[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    RecentFilesStore store = new RecentFilesStore(RecentFilesStorage.inMemory(), 20);
+                    JMenu jmenu = new JMenu("Recent Files");
+                    RecentFilesMenu menu = new RecentFilesMenu(jmenu, store, new FileIconTypes[0], new ActionListener() {
+                        @Override
+                        public void actionPerformed(ActionEvent e) {
+                        }
+                    });
+                    Random random = new Random(4);
+                    for (int i = 0; i < 1000; i++) {
+                        // up to a few changes per update
+                        for (int j = random.nextInt(4); j >= 0; j--) {
+                            File file = new File("/file" + random.nextInt(30));
+                            if (random.nextInt(4) == 0) {
+                                store.remove(file);
+                            } else {
+                                store.add(file, null);
+                            }
+                        }
+                        menu.update();
+                        assertEquals(RecentFilesListTest.paths(store.getRecentFiles()), shownPaths(jmenu));
+                    }
+                    store.close();
+                } catch (IOException | RuntimeException | AssertionError ex) {
+                    failure[0] = ex;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+    }
+
+    /**
+     * the items which keep their place are a longest increasing run of their
+     * old positions, compared with the lengths found by a quadratic search
+     */
+    @Test
+    public void keepsALongestRunOfItemsInPlace() {
+        Random random = new Random(5);
+        for (int n = 0; n < 2000; n++) {
+            int[] positions = new int[random.nextInt(12)];
+            List<Integer> old = new ArrayList<>();
+            for (int i = 0; i < positions.length; i++) {
+                old.add(i);
+            }
+            Collections.shuffle(old, random);
+            for (int i = 0; i < positions.length; i++) {
+                // some of the items are new
+                positions[i] = random.nextInt(5) == 0 ? -1 : old.get(i);
+            }
+
+            boolean[] stays = RecentFilesMenu.longestIncreasing(positions);
+            int kept = 0;
+            int last = -1;
+            for (int i = 0; i < positions.length; i++) {
+                if (stays[i]) {
+                    assertTrue(positions[i] > last);
+                    last = positions[i];
+                    kept++;
+                }
+            }
+            assertEquals(longestIncreasingLength(positions), kept);
+        }
+    }
+
+    /**
+     * finds the length of a longest increasing subsequence of the old
+     * positions the slow way
+     *
+     * @param positions the old positions, -1 for a new item
+     * @return the length
+     */
+    static int longestIncreasingLength(int[] positions) {
+        int[] lengths = new int[positions.length];
+        int longest = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] < 0) {
+                continue;
+            }
+            lengths[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (positions[j] >= 0 && positions[j] < positions[i]) {
+                    lengths[i] = Math.max(lengths[i], lengths[j] + 1);
+                }
+            }
+            longest = Math.max(longest, lengths[i]);
+        }
+        return longest;
+    }
+}
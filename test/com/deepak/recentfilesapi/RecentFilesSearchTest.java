@@ -0,0 +1,157 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * tests the fuzzy search over the recent files, its limits and its index
+ * updates
+ *
+ * @author deepak
+ */
+public class RecentFilesSearchTest {
+
+    /**
+     * the store searched, keeping the recent files in memory
+     */
+    RecentFilesStore store;
+
+    /**
+     * opens the store and adds a few files, main.c being the most recent
+     */
+    @Before
+    public void setUpStore() throws IOException {
+        store = new RecentFilesStore(RecentFilesStorage.inMemory(), 5000);
+        for (String path : new String[]{"/docs/readme.txt", "/src/RecentFilesStore.java",
+            "/src/RecentFilesList.java", "/main/notes.txt", "/src/main.c"}) {
+            store.add(new File(path), null);
+        }
+    }
+
+    /**
+     * closes the store
+     */
+    @After
+    public void closeStore() throws IOException {
+        store.close();
+    }
+
+    /**
+     * getter for the paths found by a search
+     *
+     * @param query the query
+     * @param limit the maximum no of files found
+     * @return the paths
+     */
+    List<String> search(String query, int limit) {
+        return RecentFilesListTest.paths(store.search(query, limit));
+    }
+
+    /**
+     * the query found in the file name ranks before the query found in the
+     * folders
+     */
+    @Test
+    public void fileNameMatchesRankFirst() {
+        assertEquals(Arrays.asList("/src/main.c", "/main/notes.txt"), search("main", 10));
+    }
+
+    /**
+     * a query with a typo still finds the file
+     */
+    @Test
+    public void findsAFileDespiteATypo() {
+        assertEquals("/src/RecentFilesStore.java", search("RecentFilesStroe", 10).get(0));
+    }
+
+    /**
+     * a query shorter than a trigram is looked up in every path
+     */
+    @Test
+    public void findsAShortQuery() {
+        assertEquals(Arrays.asList("/src/main.c"), search(".c", 10));
+    }
+
+    /**
+     * a limit of Integer.MAX_VALUE finds all the matches, and a limit of 0
+     * or less finds none
+     */
+    @Test
+    public void limitsTheMatches() {
+        assertEquals(Arrays.asList("/src/RecentFilesList.java", "/src/RecentFilesStore.java"),
+                search("RecentFiles", Integer.MAX_VALUE));
+        assertEquals(1, search("RecentFiles", 1).size());
+        assertEquals(Collections.emptyList(), search("RecentFiles", 0));
+        assertEquals(Collections.emptyList(), search("RecentFiles", -1));
+        assertEquals(Collections.emptyList(), search("", Integer.MIN_VALUE));
+    }
+
+    /**
+     * a blank query finds the most recent files
+     */
+    @Test
+    public void blankQueryFindsTheMostRecentFiles() {
+        assertEquals(Arrays.asList("/src/main.c", "/main/notes.txt"), search(" ", 2));
+        assertEquals(5, search("", Integer.MAX_VALUE).size());
+    }
+
+    /**
+     * a removed file is not found, and is found again once added again
+     */
+    @Test
+    public void followsTheChangesOfTheList() throws IOException {
+        search("notes", 10);
+        store.remove(new File("/main/notes.txt"));
+        assertEquals(Collections.emptyList(), search("notes", 10));
+
+        store.add(new File("/main/notes.txt"), null);
+        assertEquals(Arrays.asList("/main/notes.txt"), search("notes", 10));
+    }
+
+    /**
+     * the index finds the right files after enough removals to be compacted
+     */
+    @Test
+    public void findsTheRightFilesAfterACompaction() throws IOException {
+        search("file", 10);
+        for (int i = 0; i < 3000; i++) {
+            store.add(new File("/bulk/file" + i + ".txt"), null);
+        }
+        for (int i = 0; i < 3000; i++) {
+            if (i % 3 != 0) {
+                store.remove(new File("/bulk/file" + i + ".txt"));
+            }
+        }
+
+        List<String> found = search("/bulk/file", Integer.MAX_VALUE);
+        assertEquals(1000, found.size());
+        for (String path : found) {
+            int no = Integer.parseInt(path.substring("/bulk/file".length(), path.length() - ".txt".length()));
+            assertTrue(path, no % 3 == 0);
+        }
+    }
+}
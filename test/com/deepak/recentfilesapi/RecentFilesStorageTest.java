@@ -0,0 +1,95 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * tests the storage extension point with the in-memory storage and a custom
+ * storage
+ *
+ * @author deepak
+ */
+public class RecentFilesStorageTest {
+
+    /**
+     * a storage recording the changes it is given
+     */
+    static class RecordingStorage extends RecentFilesStorage {
+
+        /**
+         * the recorded change types and paths
+         */
+        final List<String> changes = new ArrayList<>();
+
+        @Override
+        protected List<RecentFile> load(int maxRecords) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        protected long write(RecentFile[] snapshot, List<RecentFileChange> changes) {
+            for (RecentFileChange change : changes) {
+                this.changes.add(change.getType() + " " + change.getRecentFile().getFile().getPath());
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * the in-memory storage gives a new store the list saved by the last one
+     */
+    @Test
+    public void inMemoryStorageKeepsTheSavedList() throws IOException {
+        RecentFilesStorage storage = RecentFilesStorage.inMemory();
+        RecentFilesStore store = new RecentFilesStore(storage, 10);
+        store.add(new File("/a"), null);
+        store.add(new File("/b"), new String[]{"x"});
+        store.close();
+
+        store = new RecentFilesStore(storage, 1);
+        assertEquals(Arrays.asList("/b"), RecentFilesListTest.paths(store.getRecentFiles()));
+        store.close();
+        assertNull(storage.getConfigFile());
+    }
+
+    /**
+     * a custom storage is given every change of the list in order
+     */
+    @Test
+    public void customStorageGetsEveryChange() throws IOException {
+        RecordingStorage storage = new RecordingStorage();
+        RecentFilesStore store = new RecentFilesStore(storage, 2);
+        store.add(new File("/a"), null);
+        store.add(new File("/b"), null);
+        store.add(new File("/a"), null);
+        store.add(new File("/c"), null);
+        store.remove(new File("/a"));
+        store.close();
+
+        assertEquals(Arrays.asList("ADDED /a", "ADDED /b", "PROMOTED /a", "ADDED /c", "EVICTED /b", "REMOVED /a"),
+                storage.changes);
+    }
+}
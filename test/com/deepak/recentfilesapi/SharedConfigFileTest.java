@@ -0,0 +1,141 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * tests the stores sharing one config file, in this process and in other
+ * processes, for every storage format
+ *
+ * @author deepak
+ */
+public class SharedConfigFileTest {
+
+    /**
+     * the no of files every process adds
+     */
+    private static final int FILES_PER_PROCESS = 40;
+    /**
+     * the folder of the config files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * the main class of the other processes, which adds files to a shared
+     * store one save at a time
+     */
+    public static class Writer {
+
+        /**
+         * adds the files
+         *
+         * @param args the config file, the storage format and the prefix of
+         * the added paths
+         * @throws IOException if the store could not be loaded or saved
+         */
+        public static void main(String[] args) throws IOException {
+            RecentFilesStore store = new RecentFilesStore(args[0], 1000, StorageFormat.valueOf(args[1]));
+            store.setShared(true);
+            for (int i = 0; i < FILES_PER_PROCESS; i++) {
+                store.add(new File("/" + args[2] + "/file" + i), new String[]{args[2]});
+            }
+            store.close();
+        }
+    }
+
+    /**
+     * opens a shared store of a config file
+     *
+     * @param configFile the config file
+     * @param storageFormat the storage format
+     * @param maxRecords the maximum no of recent files
+     * @return the store
+     * @throws IOException if the store could not be loaded
+     */
+    static RecentFilesStore openShared(File configFile, StorageFormat storageFormat, int maxRecords) throws IOException {
+        RecentFilesStore store = new RecentFilesStore(configFile.getPath(), maxRecords, storageFormat);
+        store.setShared(true);
+        return store;
+    }
+
+    /**
+     * the changes saved by one store are merged into the other one
+     */
+    @Test
+    public void storesSeeTheChangesOfEachOther() throws IOException {
+        for (StorageFormat storageFormat : StorageFormat.values()) {
+            File configFile = new File(folder.getRoot(), storageFormat + ".config");
+            RecentFilesStore first = openShared(configFile, storageFormat, 10);
+            RecentFilesStore second = openShared(configFile, storageFormat, 10);
+
+            first.add(new File("/a"), null);
+            second.add(new File("/b"), new String[]{"x"});
+            first.reload();
+            assertEquals(storageFormat.toString(), Arrays.asList("/b", "/a"),
+                    RecentFilesListTest.paths(first.getRecentFiles()));
+
+            first.remove(new File("/b"));
+            first.add(new File("/c"), null);
+            second.reload();
+            assertEquals(storageFormat.toString(), Arrays.asList("/c", "/a"),
+                    RecentFilesListTest.paths(second.getRecentFiles()));
+
+            first.close();
+            second.close();
+        }
+    }
+
+    /**
+     * processes adding files to the shared config file at the same time keep
+     * the files of each other
+     */
+    @Test
+    public void processesKeepTheChangesOfEachOther() throws IOException, InterruptedException {
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        for (StorageFormat storageFormat : StorageFormat.values()) {
+            File configFile = new File(folder.getRoot(), storageFormat + ".config");
+            List<Process> processes = new ArrayList<>();
+            for (String prefix : new String[]{"first", "second"}) {
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        Writer.class.getName(), configFile.getPath(), storageFormat.name(), prefix)
+                        .inheritIO().start());
+            }
+            // this process adds its files at the same time
+            Writer.main(new String[]{configFile.getPath(), storageFormat.name(), "this"});
+            for (Process process : processes) {
+                assertEquals(0, process.waitFor());
+            }
+
+            RecentFilesStore store = new RecentFilesStore(configFile.getPath(), 1000, storageFormat);
+            List<String> paths = RecentFilesListTest.paths(store.getRecentFiles());
+            store.close();
+            assertEquals(storageFormat.toString(), 3 * FILES_PER_PROCESS, new HashSet<>(paths).size());
+            assertEquals(storageFormat.toString(), 3 * FILES_PER_PROCESS, paths.size());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ This file is part of RecentFiles API v0.1
+
+ RecentFiles API is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ RecentFiles API is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Lesser General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with RecentFiles API.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.recentfilesapi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * the round trip tests every storage format has to pass: the recent files are
+ * loaded in the order and with the attributes they were saved with
+ *
+ * @author deepak
+ */
+public abstract class StorageFormatTestCase {
+
+    /**
+     * the folder of the config files
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    /**
+     * the config file, which doesnt exist yet
+     */
+    File configFile;
+
+    /**
+     * getter for the storage format under test
+     *
+     * @return the storage format
+     */
+    abstract StorageFormat format();
+
+    /**
+     * picks a config file
+     */
+    @Before
+    public void setUpConfigFile() {
+        configFile = new File(folder.getRoot(), "recent.config");
+    }
+
+    /**
+     * opens a store of the config file
+     *
+     * @param maxRecords the maximum no of recent files
+     * @return the store
+     * @throws IOException if the config file could not be loaded
+     */
+    RecentFilesStore open(int maxRecords) throws IOException {
+        return new RecentFilesStore(configFile.getPath(), maxRecords, format());
+    }
+
+    /**
+     * opens a store of the config file, gets its recent files and closes it
+     *
+     * @param maxRecords the maximum no of recent files
+     * @return the loaded recent files
+     * @throws IOException if the config file could not be loaded
+     */
+    List<RecentFile> reload(int maxRecords) throws IOException {
+        RecentFilesStore store = open(maxRecords);
+        try {
+            return store.getRecentFiles();
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * checks that two lists of recent files have the same paths and
+     * attributes in the same order
+     *
+     * @param expected the expected recent files
+     * @param actual the actual recent files
+     */
+    static void assertSameRecentFiles(List<RecentFile> expected, List<RecentFile> actual) {
+        assertEquals(RecentFilesListTest.paths(expected), RecentFilesListTest.paths(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i).getAttributes(), actual.get(i).getAttributes());
+        }
+    }
+
+    /**
+     * the paths and attributes survive a reload, including the characters
+     * which the text formats escape
+     */
+    @Test
+    public void roundTripKeepsTheOrderAndTheAttributes() throws IOException {
+        RecentFilesStore store = open(10);
+        store.add(new File("/plain/a.txt"), null);
+        store.add(new File("/tab\there/b.txt"), new String[]{"line\nbreak", "back\\slash", "", "tab\tbed"});
+        store.add(new File("/unicode/\u00e9\u4e2d.txt"), new String[]{"\u00fc", "carriage\rreturn"});
+        store.add(new File("/plain/a.txt"), new String[]{"promoted"});
+        List<RecentFile> saved = store.getRecentFiles();
+        store.close();
+
+        assertEquals(Arrays.asList("/plain/a.txt", "/unicode/\u00e9\u4e2d.txt", "/tab\there/b.txt"),
+                RecentFilesListTest.paths(saved));
+        assertSameRecentFiles(saved, reload(10));
+    }
+
+    /**
+     * only the most recent files up to the maximum no are loaded
+     */
+    @Test
+    public void loadsOnlyTheMostRecentFiles() throws IOException {
+        RecentFilesStore store = open(20);
+        for (int i = 0; i < 20; i++) {
+            store.add(new File("/file" + i), new String[]{"attribute" + i});
+        }
+        List<RecentFile> saved = store.getRecentFiles();
+        store.close();
+
+        assertSameRecentFiles(saved.subList(0, 5), reload(5));
+        assertSameRecentFiles(saved, reload(50));
+    }
+
+    /**
+     * the list after random adds, promotions, removals and evictions is the
+     * list which is loaded again
+     */
+    @Test
+    public void randomChangesSurviveAReload() throws IOException {
+        RecentFilesStore store = open(15);
+        Random random = new Random(2);
+        for (int i = 0; i < 400; i++) {
+            File file = new File("/folder" + random.nextInt(3) + "/file" + random.nextInt(40));
+            if (random.nextInt(4) == 0) {
+                store.remove(file);
+            } else {
+                store.add(file, random.nextBoolean() ? null : new String[]{"a" + random.nextInt(3)});
+            }
+            if (i % 100 == 99) {
+                List<RecentFile> saved = store.getRecentFiles();
+                store.close();
+                assertSameRecentFiles(saved, reload(15));
+                store = open(15);
+            }
+        }
+        store.close();
+    }
+
+    /**
+     * a v0.1 properties config file is converted and loaded
+     */
+    @Test
+    public void convertsAVersion01ConfigFile() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("00", "/old/first.txt");
+        properties.setProperty("01", "attribute");
+        properties.setProperty("10", "/old/second.txt");
+        try (OutputStream out = new FileOutputStream(configFile)) {
+            properties.store(out, null);
+        }
+
+        List<RecentFile> loaded = reload(10);
+        assertEquals(Arrays.asList("/old/first.txt", "/old/second.txt"), RecentFilesListTest.paths(loaded));
+        assertArrayEquals(new String[]{"attribute"}, loaded.get(0).getAttributes());
+        // the converted config file loads the same
+        assertSameRecentFiles(loaded, reload(10));
+    }
+
+    /**
+     * a new config file is empty, and stays loadable once saved empty
+     */
+    @Test
+    public void newConfigFileIsEmpty() throws IOException {
+        RecentFilesStore store = open(10);
+        assertTrue(store.getRecentFiles().isEmpty());
+        store.add(new File("/a"), null);
+        store.remove(new File("/a"));
+        store.close();
+
+        assertTrue(reload(10).isEmpty());
+    }
+}